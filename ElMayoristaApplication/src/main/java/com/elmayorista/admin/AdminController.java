@@ -1,33 +1,42 @@
 package com.elmayorista.admin;
 
 import com.elmayorista.config.Mapper;
+import com.elmayorista.sale.KeysetPage;
 import com.elmayorista.sale.SaleDTO;
+import com.elmayorista.sale.SaleImportResult;
+import com.elmayorista.sale.SaleImportService;
+import com.elmayorista.sale.SaleReviewDecision;
+import com.elmayorista.sale.SaleReviewResult;
 import com.elmayorista.sale.Sale;
+import com.elmayorista.sale.SaleSearchCriteria;
 import com.elmayorista.sale.SaleService;
+import com.elmayorista.sale.SaleSummary;
 import com.elmayorista.user.AdminDashboardStats;
 import com.elmayorista.user.User;
 import com.elmayorista.user.UserService;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 import com.elmayorista.service.ExcelReportService;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import jakarta.validation.Valid;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-
 import java.util.Map;
 
 import com.elmayorista.notification.NotificationService;
@@ -40,6 +49,7 @@ public class AdminController {
     private final UserService userService;
     private final ExcelReportService excelReportService;
     private final SaleService saleService;
+    private final SaleImportService saleImportService;
     private final NotificationService notificationService;
     private final Mapper mapper;
 
@@ -47,6 +57,10 @@ public class AdminController {
     public record ReviewRequest(boolean approved, String rejectionReason) {
     }
 
+    public record BatchReviewRequest(
+            @NotEmpty(message = "Debe indicar al menos una venta") List<@Valid SaleReviewDecision> decisions) {
+    }
+
     /**
      * Revisa una venta, la aprueba (y calcula comisión) o la rechaza.
      * 
@@ -61,6 +75,62 @@ public class AdminController {
         return ResponseEntity.ok(mapper.toSaleDTO(reviewedSale));
     }
 
+    /**
+     * Revisa varias ventas a la vez. Cada venta se aprueba o rechaza según su
+     * decisión; las que no se pueden revisar se informan en el resultado.
+     *
+     * @param request Las decisiones de revisión.
+     * @return Un resultado por venta, en el orden de la solicitud.
+     */
+    @PostMapping("/sales/review-batch")
+    public ResponseEntity<List<SaleReviewResult>> reviewSales(@Valid @RequestBody BatchReviewRequest request) {
+        return ResponseEntity.ok(saleService.reviewSales(request.decisions()));
+    }
+
+    /**
+     * Importa ventas históricas desde un archivo CSV (con encabezado) o JSON
+     * lines. Las filas inválidas se omiten y se informan en el resultado.
+     *
+     * @param file        El archivo .csv o .jsonl.
+     * @param userDetails El administrador que realiza la importación.
+     * @return Cantidad de ventas importadas y omitidas, con los errores.
+     */
+    @PostMapping("/sales/import")
+    public ResponseEntity<SaleImportResult> importSales(@RequestParam("file") MultipartFile file,
+            @AuthenticationPrincipal UserDetails userDetails) {
+        User currentUser = userService.getUserByEmail(userDetails.getUsername())
+                .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+        return ResponseEntity.ok(saleImportService.importSales(file, currentUser));
+    }
+
+    /**
+     * Ventas en revisión con paginación por cursor, de la más reciente a la más
+     * antigua. El conteo total solo se calcula si se pide con {@code count=true}.
+     */
+    @GetMapping("/sales/under-review/scroll")
+    public ResponseEntity<KeysetPage<SaleDTO>> scrollSalesUnderReview(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+        KeysetPage<Sale> sales = saleService.scrollSalesByStatus(
+                com.elmayorista.sale.SaleStatus.UNDER_REVIEW, cursor, size, count);
+        return ResponseEntity.ok(sales.map(mapper::toSaleDTO));
+    }
+
+    /**
+     * Historial de ventas con paginación por cursor, de la más reciente a la
+     * más antigua. El conteo total solo se calcula si se pide con
+     * {@code count=true}.
+     */
+    @GetMapping("/sales/scroll")
+    public ResponseEntity<KeysetPage<SaleDTO>> scrollAllSales(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+        KeysetPage<Sale> sales = saleService.scrollAllSales(cursor, size, count);
+        return ResponseEntity.ok(sales.map(mapper::toSaleDTO));
+    }
+
     /**
      * Obtiene todas las ventas que están en estado "UNDER_REVIEW".
      * 
@@ -83,18 +153,46 @@ public class AdminController {
     }
 
     /**
-     * Descarga el reporte de liquidación en Excel
+     * Busca ventas por vendedor, rango de fechas, estado, tipo, estado de pago y
+     * liquidación. Los filtros omitidos no se aplican.
+     */
+    @GetMapping("/sales/search")
+    public ResponseEntity<Page<SaleSummary>> searchSales(SaleSearchCriteria criteria, Pageable pageable) {
+        return ResponseEntity.ok(saleService.searchSales(criteria, pageable));
+    }
+
+    /**
+     * Busca ventas por texto parcial: nombre o cédula del cliente, número de
+     * pedido o serie del televisor. Los resultados más parecidos van primero.
+     */
+    @GetMapping("/sales/search/text")
+    public ResponseEntity<Page<SaleDTO>> searchSalesByText(@RequestParam String q, Pageable pageable) {
+        Page<Sale> sales = saleService.searchSalesByText(q, pageable);
+        return ResponseEntity.ok(sales.map(mapper::toSaleDTO));
+    }
+
+    /**
+     * Obtiene las ventas con saldo pendiente, de mayor a menor saldo.
+     */
+    @GetMapping("/sales/outstanding")
+    public ResponseEntity<Page<SaleDTO>> getSalesWithBalance(Pageable pageable) {
+        Page<Sale> sales = saleService.getSalesWithBalance(pageable);
+        return ResponseEntity.ok(sales.map(mapper::toSaleDTO));
+    }
+
+    /**
+     * Descarga el reporte de liquidación en Excel.
+     * El archivo se genera mientras se envía, sin armarlo completo en memoria.
      */
     @GetMapping("/reports/settlement")
-    public ResponseEntity<Resource> downloadSettlementReport() throws IOException {
-        ByteArrayInputStream in = excelReportService.generateSettlementReport();
-        InputStreamResource file = new InputStreamResource(in);
+    public ResponseEntity<StreamingResponseBody> downloadSettlementReport() {
+        StreamingResponseBody body = excelReportService::writeSettlementReport;
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=Liquidacion.xlsx")
                 .contentType(
                         MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
-                .body(file);
+                .body(body);
     }
 
     /**
@@ -149,6 +247,26 @@ public class AdminController {
         return ResponseEntity.ok(updatedUser);
     }
 
+    /**
+     * Recalcula la comisión de las ventas no liquidadas de un seller con su
+     * porcentaje actual.
+     *
+     * @param userId ID del seller
+     * @param status Solo ventas en este estado (opcional)
+     * @param from   Fecha de pedido desde, inclusive (opcional)
+     * @param to     Fecha de pedido hasta, exclusiva (opcional)
+     * @return Número de ventas actualizadas
+     */
+    @PostMapping("/sellers/{userId}/commission/recalculate")
+    public ResponseEntity<Map<String, Integer>> recalculateSellerCommissions(
+            @PathVariable UUID userId,
+            @RequestParam(required = false) com.elmayorista.sale.SaleStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        int updated = saleService.recalculateSellerCommissions(userId, status, from, to);
+        return ResponseEntity.ok(Map.of("updated", updated));
+    }
+
     /**
      * Obtiene las estadísticas del panel de administración
      * 
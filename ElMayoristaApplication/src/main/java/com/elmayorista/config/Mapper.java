@@ -2,7 +2,6 @@ package com.elmayorista.config;
 
 import com.elmayorista.payment.Payment;
 import com.elmayorista.payment.PaymentDTO;
-import com.elmayorista.payment.PaymentRepository;
 import com.elmayorista.sale.*;
 import com.elmayorista.user.User;
 import com.elmayorista.user.UserDTO;
@@ -17,8 +16,6 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class Mapper {
 
-    private final PaymentRepository paymentRepository;
-
     public UserDTO toUserDTO(User user) {
         if (user == null) return null;
 
@@ -53,7 +50,7 @@ public class Mapper {
     public SaleDTO toSaleDTO(Sale sale) {
         if (sale == null) return null;
 
-        BigDecimal totalPaid = paymentRepository.sumAmountBySale(sale);
+        BigDecimal totalPaid = sale.getPaidAmount();
         BigDecimal remainingAmount = sale.getTotal().subtract(totalPaid);
 
         return SaleDTO.builder()
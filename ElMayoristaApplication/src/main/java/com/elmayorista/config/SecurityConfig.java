@@ -76,6 +76,8 @@ public class SecurityConfig {
                         .requestMatchers("/api/notifications/**").authenticated()
                         // Permitir acceso al endpoint de subida de reportes a usuarios autenticados
                         .requestMatchers(HttpMethod.POST, "/api/reports/upload-report").authenticated()
+                        // Los totales por vendedor de un ciclo solo los ve el administrador
+                        .requestMatchers("/api/reports/cycles/*/sellers").hasAuthority("ADMIN")
                         // Todas las demás peticiones deben estar autenticadas.
                         .anyRequest().authenticated())
                 // Manejo de excepciones de seguridad
@@ -2,8 +2,11 @@ package com.elmayorista.customer;
 
 import com.elmayorista.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,4 +20,19 @@ public interface CustomerFiadoRepository extends JpaRepository<CustomerFiado, Lo
     List<CustomerFiado> findBySettledInCycleFalse();
 
     List<CustomerFiado> findBySellerAndSettledInCycleFalse(User seller);
+
+    @Query("SELECT cf FROM CustomerFiado cf JOIN FETCH cf.seller JOIN FETCH cf.customer " +
+            "WHERE cf.settledInCycle = false")
+    List<CustomerFiado> findUnsettledWithSellerAndCustomer();
+
+    /**
+     * Bulk-settle the given customer fiados at cycle close.
+     *
+     * @return The number of fiados settled by this call.
+     */
+    @Modifying
+    @Query("UPDATE CustomerFiado cf SET cf.status = com.elmayorista.fiado.FiadoStatus.SETTLED, " +
+            "cf.settledInCycle = true, cf.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE cf.id IN :ids AND cf.settledInCycle = false")
+    int settleInCycle(Collection<Long> ids);
 }
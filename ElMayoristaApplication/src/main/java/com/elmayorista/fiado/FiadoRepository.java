@@ -2,8 +2,11 @@ package com.elmayorista.fiado;
 
 import com.elmayorista.user.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,4 +20,17 @@ public interface FiadoRepository extends JpaRepository<Fiado, Long> {
     List<Fiado> findBySettledInCycleFalse();
 
     List<Fiado> findAllByOrderByCreatedAtDesc();
+
+    @Query("SELECT f FROM Fiado f JOIN FETCH f.seller WHERE f.settledInCycle = false")
+    List<Fiado> findUnsettledWithSeller();
+
+    /**
+     * Bulk-settle the given fiados at cycle close.
+     *
+     * @return The number of fiados settled by this call.
+     */
+    @Modifying
+    @Query("UPDATE Fiado f SET f.status = com.elmayorista.fiado.FiadoStatus.SETTLED, f.settledInCycle = true, " +
+            "f.updatedAt = CURRENT_TIMESTAMP WHERE f.id IN :ids AND f.settledInCycle = false")
+    int settleInCycle(Collection<Long> ids);
 }
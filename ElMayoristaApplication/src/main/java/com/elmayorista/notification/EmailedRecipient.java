@@ -0,0 +1,11 @@
+package com.elmayorista.notification;
+
+import java.util.UUID;
+
+/**
+ * A user already emailed about a referenced sale.
+ */
+public record EmailedRecipient(
+        UUID userId,
+        Long referenceId
+) {}
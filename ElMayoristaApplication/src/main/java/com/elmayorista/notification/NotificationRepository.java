@@ -1,10 +1,13 @@
 package com.elmayorista.notification;
 
+import com.elmayorista.sale.SaleStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -25,6 +28,33 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
 
     void deleteByReferenceIdAndType(Long referenceId, NotificationType type);
 
+    /**
+     * Users emailed about each of the given sales, for one notification type,
+     * after the given time.
+     */
+    @Query("SELECT new com.elmayorista.notification.EmailedRecipient(n.user.id, n.referenceId) " +
+            "FROM Notification n WHERE n.type = :type AND n.referenceId IN :referenceIds " +
+            "AND n.lastEmailSentAt > :since")
+    List<EmailedRecipient> findEmailedSince(@Param("type") NotificationType type,
+            @Param("referenceIds") Collection<Long> referenceIds, @Param("since") LocalDateTime since);
+
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.referenceId IN :referenceIds AND n.type IN :types")
+    int deleteByReferenceIdInAndTypeIn(@Param("referenceIds") Collection<Long> referenceIds,
+            @Param("types") Collection<NotificationType> types);
+
+    /**
+     * Deletes the notifications of the given types whose referenced sale no
+     * longer exists or is no longer in the given status.
+     *
+     * @return The number of notifications deleted.
+     */
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.type IN :types AND n.referenceId IS NOT NULL " +
+            "AND NOT EXISTS (SELECT s.id FROM Sale s WHERE s.id = n.referenceId AND s.status = :status)")
+    int deleteWhereSaleNotInStatus(@Param("types") Collection<NotificationType> types,
+            @Param("status") SaleStatus status);
+
     @Modifying
     @Query("UPDATE Notification n SET n.read = true WHERE n.user.id = :userId AND n.read = false")
     void markAllReadByUserId(@Param("userId") UUID userId);
@@ -1,5 +1,7 @@
 package com.elmayorista.notification;
 
+import com.elmayorista.scheduling.ScheduledJobLockService;
+import com.elmayorista.scheduling.StartupJobRunner;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -7,12 +9,20 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class NotificationScheduler {
 
+    private static final String JOB_NAME = "pending-sale-reminders";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(30);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofMinutes(5);
+
     private final NotificationService notificationService;
+    private final ScheduledJobLockService scheduledJobLockService;
+    private final StartupJobRunner startupJobRunner;
 
     /**
      * Run daily at 8:00 AM to generate pending sale reminders.
@@ -20,15 +30,25 @@ public class NotificationScheduler {
     @Scheduled(cron = "0 0 8 * * *")
     public void dailyPendingSaleReminders() {
         log.info("Running scheduled pending sale reminders...");
-        notificationService.generatePendingSaleReminders();
+        generateReminders();
     }
 
     /**
-     * Run on application startup to generate any missing notifications.
+     * Generate any missing notifications after startup, in the background and
+     * only if the job has not run recently.
      */
     @EventListener(ApplicationReadyEvent.class)
     public void onApplicationReady() {
-        log.info("Application started - generating pending sale reminders...");
-        notificationService.generatePendingSaleReminders();
+        startupJobRunner.runAfterStartup(JOB_NAME, LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR,
+                notificationService::generatePendingSaleReminders);
+    }
+
+    /**
+     * Only one node runs the job; the lease is kept for a few minutes so the
+     * other nodes' 8:00 triggers are skipped even with some clock skew.
+     */
+    private void generateReminders() {
+        scheduledJobLockService.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR,
+                notificationService::generatePendingSaleReminders);
     }
 }
@@ -9,13 +9,17 @@ import com.elmayorista.user.User;
 import com.elmayorista.user.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -24,7 +28,23 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class NotificationService {
 
+    /**
+     * Notifications about a sale that stop making sense once it is reviewed.
+     */
+    private static final List<NotificationType> SALE_PENDING_TYPES = List.of(
+            NotificationType.SALE_PENDING_REMINDER,
+            NotificationType.SALE_PENDING_ADMIN_ALERT,
+            NotificationType.SALE_UNDER_REVIEW);
+
+    /**
+     * Reminder types kept unique per (user, sale) and written by upsert.
+     */
+    private static final List<NotificationType> REMINDER_TYPES = List.of(
+            NotificationType.SALE_PENDING_REMINDER,
+            NotificationType.SALE_PENDING_ADMIN_ALERT);
+
     private final NotificationRepository notificationRepository;
+    private final NotificationUpsertRepository notificationUpsertRepository;
     private final SaleRepository saleRepository;
     private final EmailService emailService;
     private final UserRepository userRepository;
@@ -75,6 +95,7 @@ public class NotificationService {
         boolean sendPlatform = "PLATFORM".equals(channel) || "BOTH".equals(channel);
 
         if (sendPlatform) {
+            // Upsert: the seller keeps a single reminder per sale, marked unread again
             Notification notification = Notification.builder()
                     .user(seller)
                     .type(NotificationType.SALE_PENDING_REMINDER)
@@ -82,13 +103,13 @@ public class NotificationService {
                     .message("Venta " + orderNum + " - " + customerName + " (enviado por admin)")
                     .referenceId(sale.getId())
                     .referenceDate(sale.getOrderDate())
-                    .read(false)
+                    .createdAt(LocalDateTime.now())
                     .build();
-            notificationRepository.save(notification);
+            notificationUpsertRepository.upsertReminders(List.of(notification));
         }
 
         if (sendEmail) {
-            emailService.sendPendingSaleReminderToSeller(
+            emailService.sendPendingSaleReminderToSellerAsync(
                     seller.getEmail(),
                     seller.getFullName(),
                     orderNum,
@@ -104,16 +125,25 @@ public class NotificationService {
     @Transactional
     public void clearNotificationsForSale(Long saleId) {
         List<Notification> notifications = notificationRepository
-                .findByReferenceIdAndTypeIn(saleId, List.of(
-                        NotificationType.SALE_PENDING_REMINDER,
-                        NotificationType.SALE_PENDING_ADMIN_ALERT,
-                        NotificationType.SALE_UNDER_REVIEW));
+                .findByReferenceIdAndTypeIn(saleId, SALE_PENDING_TYPES);
         if (!notifications.isEmpty()) {
             notificationRepository.deleteAll(notifications);
             log.info("Cleared {} notifications for sale {}", notifications.size(), saleId);
         }
     }
 
+    /**
+     * Clears the pending notifications of several sales with a single delete.
+     */
+    @Transactional
+    public void clearNotificationsForSales(Collection<Long> saleIds) {
+        if (saleIds.isEmpty()) {
+            return;
+        }
+        int deleted = notificationRepository.deleteByReferenceIdInAndTypeIn(saleIds, SALE_PENDING_TYPES);
+        log.info("Cleared {} notifications for {} sales", deleted, saleIds.size());
+    }
+
     @Transactional
     public void notifyAdminsSaleUnderReview(Sale sale) {
         List<User> admins = userRepository.findByRole(Role.ADMIN);
@@ -141,164 +171,127 @@ public class NotificationService {
         log.info("Generating pending sale reminders...");
 
         LocalDateTime now = LocalDateTime.now();
-        LocalDateTime threshold = now.minusHours(24);
-        List<Sale> pendingSales = saleRepository.findByStatus(SaleStatus.PENDING);
+        // Only sales with something due; see ReminderSchedule
+        List<Sale> dueSales = saleRepository.findDueForReminders(SaleStatus.PENDING, now);
         List<User> admins = userRepository.findByRole(Role.ADMIN);
 
-        int created = 0;
-        int reactivated = 0;
+        // Admins already emailed in this round, so a retry only goes to the ones that failed
+        List<Long> adminAlertDue = dueSales.stream()
+                .filter(sale -> ReminderSchedule.isDue(sale.getAdminAlertDueAt(), now))
+                .map(Sale::getId)
+                .toList();
+        Set<EmailedRecipient> adminsEmailed = adminAlertDue.isEmpty() ? Set.of()
+                : new HashSet<>(notificationRepository.findEmailedSince(NotificationType.SALE_PENDING_ADMIN_ALERT,
+                        adminAlertDue, ReminderSchedule.currentRoundStart(now)));
+
+        List<Notification> changes = new ArrayList<>();
+        List<Long> sellerEmailFailed = new ArrayList<>();
+        List<Long> adminAlertFailed = new ArrayList<>();
         int emailsSent = 0;
-        int adminNotifications = 0;
-
-        for (Sale sale : pendingSales) {
-            if (sale.getOrderDate().isAfter(threshold)) {
-                continue; // Skip sales less than 24h old
-            }
 
+        for (Sale sale : dueSales) {
             long daysPending = ChronoUnit.DAYS.between(sale.getOrderDate(), now);
             String orderNum = sale.getOrderNumber() != null ? sale.getOrderNumber() : "#" + sale.getId();
             String customerName = sale.getCustomerName() != null ? sale.getCustomerName() : "Sin nombre";
+            User seller = sale.getSeller();
+            boolean sellerEmailDue = ReminderSchedule.isDue(sale.getSellerEmailDueAt(), now);
 
-            // === SELLER NOTIFICATION (in-app) ===
-            UUID sellerId = sale.getSeller().getId();
-            Optional<Notification> existing = notificationRepository
-                    .findByUserIdAndReferenceIdAndType(sellerId, sale.getId(), NotificationType.SALE_PENDING_REMINDER);
-
-            Notification sellerNotification;
-            if (existing.isPresent()) {
-                sellerNotification = existing.get();
-                if (sellerNotification.isRead()) {
-                    sellerNotification.setRead(false);
-                    notificationRepository.save(sellerNotification);
-                    reactivated++;
-                }
-            } else {
-                sellerNotification = Notification.builder()
-                        .user(sale.getSeller())
+            // === SELLER NOTIFICATION (in-app, daily) + EMAIL (every 10 days) ===
+            if (ReminderSchedule.isDue(sale.getReminderDueAt(), now) || sellerEmailDue) {
+                Notification sellerReminder = Notification.builder()
+                        .user(seller)
                         .type(NotificationType.SALE_PENDING_REMINDER)
                         .title("Venta pendiente de pago")
                         .message("Venta " + orderNum + " - " + customerName)
                         .referenceId(sale.getId())
                         .referenceDate(sale.getOrderDate())
-                        .read(false)
+                        .createdAt(now)
                         .build();
-                sellerNotification = notificationRepository.save(sellerNotification);
-                created++;
-            }
-
-            // === SELLER EMAIL (every 10 days) ===
-            if (daysPending >= 10 && shouldSendEmail(sellerNotification, now)) {
-                try {
-                    emailService.sendPendingSaleReminderToSeller(
-                            sale.getSeller().getEmail(),
-                            sale.getSeller().getFullName(),
-                            orderNum,
-                            customerName,
-                            sale.getTotal().toPlainString(),
-                            daysPending);
-                    sellerNotification.setLastEmailSentAt(now);
-                    notificationRepository.save(sellerNotification);
-                    emailsSent++;
-                } catch (Exception e) {
-                    log.error("Error sending seller email for sale {}: {}", sale.getId(), e.getMessage());
+                if (sellerEmailDue) {
+                    try {
+                        emailService.sendPendingSaleReminderToSeller(
+                                seller.getEmail(),
+                                seller.getFullName(),
+                                orderNum,
+                                customerName,
+                                sale.getTotal().toPlainString(),
+                                daysPending);
+                        sellerReminder.setLastEmailSentAt(now);
+                        emailsSent++;
+                    } catch (MailException e) {
+                        log.error("Error sending seller email for sale {}: {}", sale.getId(), e.getMessage());
+                        sellerEmailFailed.add(sale.getId());
+                    }
                 }
+                changes.add(sellerReminder);
             }
 
-            // === ADMIN NOTIFICATION + EMAIL (at 30+ days) ===
-            if (daysPending >= 30) {
+            // === ADMIN NOTIFICATION + EMAIL (from 30 days, every 10 days) ===
+            if (ReminderSchedule.isDue(sale.getAdminAlertDueAt(), now)) {
+                boolean adminEmailFailed = false;
                 for (User admin : admins) {
-                    Optional<Notification> adminExisting = notificationRepository
-                            .findByUserIdAndReferenceIdAndType(admin.getId(), sale.getId(), NotificationType.SALE_PENDING_ADMIN_ALERT);
-
-                    Notification adminNotification;
-                    if (adminExisting.isPresent()) {
-                        adminNotification = adminExisting.get();
-                        if (adminNotification.isRead()) {
-                            adminNotification.setRead(false);
-                            notificationRepository.save(adminNotification);
-                        }
-                    } else {
-                        adminNotification = Notification.builder()
-                                .user(admin)
-                                .type(NotificationType.SALE_PENDING_ADMIN_ALERT)
-                                .title("Venta sin pagar - " + daysPending + " dias")
-                                .message("Venta " + orderNum + " - " + customerName + " (Vendedor: " + sale.getSeller().getFullName() + ")")
-                                .referenceId(sale.getId())
-                                .referenceDate(sale.getOrderDate())
-                                .read(false)
-                                .build();
-                        adminNotification = notificationRepository.save(adminNotification);
-                        adminNotifications++;
+                    if (adminsEmailed.contains(new EmailedRecipient(admin.getId(), sale.getId()))) {
+                        continue;
                     }
-
-                    // Admin email every 10 days
-                    if (shouldSendEmail(adminNotification, now)) {
-                        try {
-                            emailService.sendPendingSaleAlertToAdmin(
-                                    admin.getEmail(),
-                                    sale.getSeller().getFullName(),
-                                    sale.getSeller().getEmail(),
-                                    orderNum,
-                                    customerName,
-                                    sale.getTotal().toPlainString(),
-                                    daysPending);
-                            adminNotification.setLastEmailSentAt(now);
-                            notificationRepository.save(adminNotification);
-                            emailsSent++;
-                        } catch (Exception e) {
-                            log.error("Error sending admin email for sale {}: {}", sale.getId(), e.getMessage());
-                        }
+                    Notification adminAlert = Notification.builder()
+                            .user(admin)
+                            .type(NotificationType.SALE_PENDING_ADMIN_ALERT)
+                            .title("Venta sin pagar - " + daysPending + " dias")
+                            .message("Venta " + orderNum + " - " + customerName + " (Vendedor: " + seller.getFullName() + ")")
+                            .referenceId(sale.getId())
+                            .referenceDate(sale.getOrderDate())
+                            .createdAt(now)
+                            .build();
+                    try {
+                        emailService.sendPendingSaleAlertToAdmin(
+                                admin.getEmail(),
+                                seller.getFullName(),
+                                seller.getEmail(),
+                                orderNum,
+                                customerName,
+                                sale.getTotal().toPlainString(),
+                                daysPending);
+                        adminAlert.setLastEmailSentAt(now);
+                        emailsSent++;
+                    } catch (MailException e) {
+                        log.error("Error sending admin email for sale {}: {}", sale.getId(), e.getMessage());
+                        adminEmailFailed = true;
                     }
+                    changes.add(adminAlert);
+                }
+                if (adminEmailFailed) {
+                    adminAlertFailed.add(sale.getId());
                 }
             }
         }
 
-        cleanOrphanedNotifications();
-
-        log.info("Pending sale reminders: {} created, {} reactivated, {} emails sent, {} admin notifications",
-                created, reactivated, emailsSent, adminNotifications);
-    }
+        notificationUpsertRepository.upsertReminders(changes);
 
-    private boolean shouldSendEmail(Notification notification, LocalDateTime now) {
-        if (notification.getLastEmailSentAt() == null) {
-            return true;
+        // Move every due time that fired forward; failed emails are retried on the next run
+        saleRepository.advanceReminderDue(SaleStatus.PENDING, now, ReminderSchedule.daysAfter(now, 1));
+        saleRepository.advanceSellerEmailDue(SaleStatus.PENDING, now,
+                ReminderSchedule.daysAfter(now, ReminderSchedule.EMAIL_INTERVAL_DAYS));
+        saleRepository.advanceAdminAlertDue(SaleStatus.PENDING, now,
+                ReminderSchedule.daysAfter(now, ReminderSchedule.EMAIL_INTERVAL_DAYS));
+        if (!sellerEmailFailed.isEmpty()) {
+            saleRepository.rescheduleSellerEmail(sellerEmailFailed, ReminderSchedule.daysAfter(now, 1));
+        }
+        if (!adminAlertFailed.isEmpty()) {
+            saleRepository.rescheduleAdminAlert(adminAlertFailed, ReminderSchedule.daysAfter(now, 1));
         }
-        long daysSinceLastEmail = ChronoUnit.DAYS.between(notification.getLastEmailSentAt(), now);
-        return daysSinceLastEmail >= 10;
+
+        cleanOrphanedNotifications();
+
+        log.info("Pending sale reminders: {} due sales, {} notifications written, {} emails sent",
+                dueSales.size(), changes.size(), emailsSent);
     }
 
     private void cleanOrphanedNotifications() {
-        List<Notification> allReminders = notificationRepository.findAll().stream()
-                .filter(n -> n.getType() == NotificationType.SALE_PENDING_REMINDER
-                        || n.getType() == NotificationType.SALE_PENDING_ADMIN_ALERT
-                        || n.getType() == NotificationType.SALE_UNDER_REVIEW)
-                .collect(Collectors.toList());
-
-        int cleaned = 0;
-        for (Notification notification : allReminders) {
-            if (notification.getReferenceId() != null) {
-                Optional<Sale> sale = saleRepository.findById(notification.getReferenceId());
-                if (sale.isEmpty()) {
-                    notificationRepository.delete(notification);
-                    cleaned++;
-                } else {
-                    SaleStatus status = sale.get().getStatus();
-                    // Limpiar notificaciones PENDING si la venta ya no está PENDING
-                    if ((notification.getType() == NotificationType.SALE_PENDING_REMINDER
-                            || notification.getType() == NotificationType.SALE_PENDING_ADMIN_ALERT)
-                            && status != SaleStatus.PENDING) {
-                        notificationRepository.delete(notification);
-                        cleaned++;
-                    }
-                    // Limpiar notificaciones UNDER_REVIEW si la venta ya no está en revisión
-                    if (notification.getType() == NotificationType.SALE_UNDER_REVIEW
-                            && status != SaleStatus.UNDER_REVIEW) {
-                        notificationRepository.delete(notification);
-                        cleaned++;
-                    }
-                }
-            }
-        }
+        // Limpiar notificaciones PENDING si la venta ya no está PENDING (o ya no existe)
+        int cleaned = notificationRepository.deleteWhereSaleNotInStatus(REMINDER_TYPES, SaleStatus.PENDING);
+        // Limpiar notificaciones UNDER_REVIEW si la venta ya no está en revisión
+        cleaned += notificationRepository.deleteWhereSaleNotInStatus(
+                List.of(NotificationType.SALE_UNDER_REVIEW), SaleStatus.UNDER_REVIEW);
 
         if (cleaned > 0) {
             log.info("Cleaned {} orphaned notifications", cleaned);
@@ -0,0 +1,58 @@
+package com.elmayorista.notification;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Batched upserts of pending-sale reminders against the partial unique index
+ * {@code uq_notifications_pending_reminder}, created in db/schema-postgres.sql.
+ */
+@Repository
+@RequiredArgsConstructor
+public class NotificationUpsertRepository {
+
+    private static final int BATCH_SIZE = 500;
+
+    /*
+     * New ids come straight from notifications_seq. Hibernate's pooled optimizer
+     * treats each sequence value as the top of a block it has not handed out
+     * yet, so ids taken here never collide with entity inserts.
+     */
+    private static final String UPSERT_REMINDER = "INSERT INTO notifications " +
+            "(id, user_id, type, title, message, reference_id, reference_date, is_read, last_email_sent_at, created_at) " +
+            "VALUES (nextval('notifications_seq'), ?, ?, ?, ?, ?, ?, false, ?, ?) " +
+            "ON CONFLICT (user_id, reference_id, type) " +
+            "WHERE type IN ('SALE_PENDING_REMINDER', 'SALE_PENDING_ADMIN_ALERT') " +
+            "DO UPDATE SET is_read = false, title = EXCLUDED.title, message = EXCLUDED.message, " +
+            "last_email_sent_at = COALESCE(EXCLUDED.last_email_sent_at, notifications.last_email_sent_at) " +
+            // Skip rewriting rows the upsert would leave unchanged
+            "WHERE notifications.is_read OR EXCLUDED.last_email_sent_at IS NOT NULL " +
+            "OR notifications.title <> EXCLUDED.title OR notifications.message <> EXCLUDED.message";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the reminders, or marks the existing ones unread and refreshes
+     * their text and email timestamp. Rows that would not change are left
+     * untouched. Only the user id of each notification's user is read.
+     */
+    public void upsertReminders(List<Notification> reminders) {
+        if (reminders.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPSERT_REMINDER, reminders, BATCH_SIZE, (ps, reminder) -> {
+            ps.setObject(1, reminder.getUser().getId());
+            ps.setString(2, reminder.getType().name());
+            ps.setString(3, reminder.getTitle());
+            ps.setString(4, reminder.getMessage());
+            ps.setLong(5, reminder.getReferenceId());
+            ps.setObject(6, reminder.getReferenceDate(), Types.TIMESTAMP);
+            ps.setObject(7, reminder.getLastEmailSentAt(), Types.TIMESTAMP);
+            ps.setObject(8, reminder.getCreatedAt(), Types.TIMESTAMP);
+        });
+    }
+}
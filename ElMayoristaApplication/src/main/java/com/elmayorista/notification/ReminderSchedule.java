@@ -0,0 +1,61 @@
+package com.elmayorista.notification;
+
+import com.elmayorista.sale.Sale;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Cadence of the pending-sale reminders. Each pending sale stores when its
+ * next in-app reminder, seller email and admin alert are due, so the daily
+ * job only reads the sales that have something to send.
+ */
+public final class ReminderSchedule {
+
+    static final int EMAIL_INTERVAL_DAYS = 10;
+
+    private static final int FIRST_REMINDER_HOURS = 24;
+    private static final int FIRST_SELLER_EMAIL_DAYS = 10;
+    private static final int FIRST_ADMIN_ALERT_DAYS = 30;
+
+    private ReminderSchedule() {
+    }
+
+    /**
+     * Sets the first due times of a new pending sale from its order date.
+     */
+    public static void initialize(Sale sale) {
+        initialize(sale, sale.getOrderDate());
+    }
+
+    /**
+     * Sets the first due times of a pending sale counting from {@code from}
+     * instead of its order date.
+     */
+    public static void initialize(Sale sale, LocalDateTime from) {
+        sale.setReminderDueAt(from.plusHours(FIRST_REMINDER_HOURS));
+        sale.setSellerEmailDueAt(from.plusDays(FIRST_SELLER_EMAIL_DAYS));
+        sale.setAdminAlertDueAt(from.plusDays(FIRST_ADMIN_ALERT_DAYS));
+    }
+
+    /**
+     * Emails sent after this time belong to the current round, so a retry
+     * after a failed send skips those recipients. One day short of the
+     * interval, as runs do not fire at the same time every day.
+     */
+    static LocalDateTime currentRoundStart(LocalDateTime now) {
+        return now.minusDays(EMAIL_INTERVAL_DAYS - 1);
+    }
+
+    static boolean isDue(LocalDateTime dueAt, LocalDateTime now) {
+        return dueAt != null && !dueAt.isAfter(now);
+    }
+
+    /**
+     * Start of the day {@code days} after {@code now}, so the next daily run
+     * picks it up whatever time it fires.
+     */
+    static LocalDateTime daysAfter(LocalDateTime now, int days) {
+        return now.truncatedTo(ChronoUnit.DAYS).plusDays(days);
+    }
+}
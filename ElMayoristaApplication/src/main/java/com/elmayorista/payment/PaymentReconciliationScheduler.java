@@ -0,0 +1,45 @@
+package com.elmayorista.payment;
+
+import com.elmayorista.scheduling.ScheduledJobLockService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Consistency check of the stored paid amounts. Existing sales were
+ * backfilled once by db/schema-postgres.sql, so this only reports and
+ * fixes drift.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentReconciliationScheduler {
+
+    private static final String JOB_NAME = "payment-reconciliation";
+    private static final Duration LOCK_AT_MOST_FOR = Duration.ofMinutes(30);
+    private static final Duration LOCK_AT_LEAST_FOR = Duration.ofMinutes(5);
+
+    private final PaymentService paymentService;
+    private final ScheduledJobLockService scheduledJobLockService;
+
+    /**
+     * Run nightly at 3:00 AM to check the stored paid amounts against the
+     * payments table.
+     */
+    @Scheduled(cron = "0 0 3 * * *")
+    public void nightlyReconciliation() {
+        scheduledJobLockService.runExclusively(JOB_NAME, LOCK_AT_MOST_FOR, LOCK_AT_LEAST_FOR, this::reconcile);
+    }
+
+    private void reconcile() {
+        int corrected = paymentService.reconcilePaidAmounts();
+        if (corrected > 0) {
+            log.warn("Paid amount reconciliation corrected {} sales", corrected);
+        } else {
+            log.info("Paid amount reconciliation found no differences");
+        }
+    }
+}
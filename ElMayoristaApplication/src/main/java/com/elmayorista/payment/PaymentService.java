@@ -10,15 +10,18 @@ import com.elmayorista.service.FileStorageService;
 import com.elmayorista.user.User;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
@@ -38,7 +41,7 @@ public class PaymentService {
             throw new IllegalStateException("La venta ya ha sido completamente pagada.");
         }
 
-        BigDecimal totalPaid = paymentRepository.sumAmountBySale(sale);
+        BigDecimal totalPaid = sale.getPaidAmount();
         BigDecimal newTotalPaid = totalPaid.add(request.getAmount());
 
         if (newTotalPaid.compareTo(sale.getTotal()) > 0) {
@@ -66,6 +69,7 @@ public class PaymentService {
                 .receiptUrl(receiptUrl)
                 .build();
         payment = paymentRepository.save(payment);
+        sale.setPaidAmount(newTotalPaid);
 
         // Update sale payment status and calculate commission if fully paid
         if (newTotalPaid.compareTo(sale.getTotal()) == 0) {
@@ -127,7 +131,8 @@ public class PaymentService {
         paymentRepository.delete(payment);
 
         // Recalcular el estado de pago de la venta
-        BigDecimal totalPaid = paymentRepository.sumAmountBySale(sale);
+        BigDecimal totalPaid = sale.getPaidAmount().subtract(payment.getAmount());
+        sale.setPaidAmount(totalPaid);
 
         if (totalPaid.compareTo(BigDecimal.ZERO) == 0) {
             sale.setPaymentStatus(PaymentStatus.UNPAID);
@@ -139,4 +144,19 @@ public class PaymentService {
 
         saleRepository.save(sale);
     }
+
+    /**
+     * Corrige las ventas cuyo monto pagado no coincide con la suma de sus pagos.
+     *
+     * @return Número de ventas corregidas.
+     */
+    @Transactional
+    public int reconcilePaidAmounts() {
+        List<SalePaidTotal> mismatches = saleRepository.findPaidAmountMismatches();
+        if (mismatches.isEmpty()) {
+            return 0;
+        }
+        mismatches.forEach(m -> log.warn("Sale {} paid amount out of sync, payments sum {}", m.saleId(), m.totalPaid()));
+        return saleRepository.recomputePaidAmount(mismatches.stream().map(SalePaidTotal::saleId).toList());
+    }
 }
@@ -0,0 +1,11 @@
+package com.elmayorista.payment;
+
+import java.math.BigDecimal;
+
+/**
+ * Sum of the payments registered for one sale, as found in the payments table.
+ */
+public record SalePaidTotal(
+        Long saleId,
+        BigDecimal totalPaid
+) {}
@@ -0,0 +1,85 @@
+package com.elmayorista.report;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Entity tracking a cycle close, so its progress can be polled from any node.
+ * While a job is active {@code activeLock} holds a fixed value; its unique
+ * constraint guarantees that only one close runs at a time.
+ */
+@Entity
+@Table(name = "close_cycle_jobs")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CloseCycleJob {
+
+    /**
+     * Value stored in {@code activeLock} while a job is queued or running.
+     */
+    public static final String ACTIVE = "ACTIVE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private CloseCycleJobStatus status = CloseCycleJobStatus.QUEUED;
+
+    @Enumerated(EnumType.STRING)
+    private CloseCyclePhase phase;
+
+    @Column(name = "rows_processed", nullable = false)
+    @Builder.Default
+    private long rowsProcessed = 0;
+
+    @Column(name = "total_rows", nullable = false)
+    @Builder.Default
+    private long totalRows = 0;
+
+    @Column(name = "cycle_id")
+    private Long cycleId;
+
+    @Column(name = "excel_report_url", columnDefinition = "TEXT")
+    private String excelReportUrl;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "active_lock", unique = true)
+    private String activeLock;
+
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    /**
+     * Last sign of life of the job, written with the database clock by
+     * {@link CloseCycleJobRepository#heartbeat} so that nodes with skewed
+     * clocks agree on when a job is stale.
+     */
+    @Column(name = "heartbeat_at", insertable = false, updatable = false)
+    private LocalDateTime heartbeatAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
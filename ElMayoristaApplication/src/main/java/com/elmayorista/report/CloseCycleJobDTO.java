@@ -0,0 +1,31 @@
+package com.elmayorista.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for CloseCycleJob entity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CloseCycleJobDTO {
+
+    private UUID id;
+    private CloseCycleJobStatus status;
+    private CloseCyclePhase phase;
+    private long rowsProcessed;
+    private long totalRows;
+    private Long cycleId;
+    private String excelReportUrl;
+    private String error;
+    private LocalDateTime createdAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
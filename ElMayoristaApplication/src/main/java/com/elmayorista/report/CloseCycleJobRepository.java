@@ -0,0 +1,37 @@
+package com.elmayorista.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+/**
+ * Repository for CloseCycleJob entity.
+ */
+@Repository
+public interface CloseCycleJobRepository extends JpaRepository<CloseCycleJob, UUID> {
+
+    /**
+     * Record that the job is still alive, with the database clock.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE close_cycle_jobs SET heartbeat_at = LOCALTIMESTAMP WHERE id = :id", nativeQuery = true)
+    int heartbeat(UUID id);
+
+    /**
+     * Fail active jobs that stopped reporting progress (e.g. their node died),
+     * releasing the lock so a new close can start. Compared with the database
+     * clock; jobs without a heartbeat yet fall back to their last update.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE close_cycle_jobs SET status = 'FAILED', active_lock = NULL, error = :error, " +
+            "finished_at = LOCALTIMESTAMP WHERE active_lock IS NOT NULL " +
+            "AND COALESCE(heartbeat_at, updated_at) < LOCALTIMESTAMP - :staleMinutes * INTERVAL '1 minute'",
+            nativeQuery = true)
+    int failStaleJobs(long staleMinutes, String error);
+}
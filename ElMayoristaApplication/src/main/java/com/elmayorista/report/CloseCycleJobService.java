@@ -0,0 +1,179 @@
+package com.elmayorista.report;
+
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Service that runs cycle closes as tracked jobs.
+ * Both the background mode and the synchronous download register a job, so
+ * they share the "one close at a time" guard and the progress reporting.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CloseCycleJobService {
+
+    private final CloseCycleJobRepository jobRepository;
+    private final CycleService cycleService;
+    private final ReportExecutor reportExecutor;
+
+    @Value("${app.reports.close-cycle.stale-minutes:60}")
+    private long staleMinutes;
+
+    /**
+     * Queue a cycle close to run in the background.
+     *
+     * @return The job, to be polled with {@link #getJob(UUID)}.
+     */
+    public CloseCycleJobDTO submit() {
+        UUID jobId = reserve();
+        try {
+            reportExecutor.getJobExecutor().execute(() -> {
+                try {
+                    run(jobId, null);
+                } catch (Exception e) {
+                    // Already recorded on the job
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fail(jobId, e);
+            throw new IllegalStateException("El generador de reportes está ocupado, intente nuevamente", e);
+        }
+        return getJob(jobId);
+    }
+
+    /**
+     * Register a new close, failing if there is nothing to close or another close
+     * is still active.
+     *
+     * @return The id of the new QUEUED job.
+     */
+    public UUID reserve() {
+        if (!cycleService.hasPendingSales()) {
+            throw new IllegalStateException("No hay ventas aprobadas para cerrar el ciclo");
+        }
+
+        int expired = jobRepository.failStaleJobs(staleMinutes, "El cierre dejó de responder");
+        if (expired > 0) {
+            log.warn("Released {} stale close-cycle jobs", expired);
+        }
+
+        try {
+            UUID jobId = jobRepository.saveAndFlush(CloseCycleJob.builder()
+                    .activeLock(CloseCycleJob.ACTIVE)
+                    .build()).getId();
+            jobRepository.heartbeat(jobId);
+            return jobId;
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("Ya hay un cierre de ciclo en curso", e);
+        }
+    }
+
+    /**
+     * Run a reserved job on the current thread.
+     *
+     * @param jobId    The job returned by {@link #reserve()}.
+     * @param download Stream that also receives the ZIP report, or null.
+     */
+    public void run(UUID jobId, OutputStream download) throws IOException {
+        update(jobId, job -> {
+            job.setStatus(CloseCycleJobStatus.RUNNING);
+            job.setStartedAt(LocalDateTime.now());
+        });
+        try {
+            Cycle cycle = cycleService.closeCycle(download, new JobProgress(jobId));
+            update(jobId, job -> {
+                job.setStatus(CloseCycleJobStatus.COMPLETED);
+                job.setCycleId(cycle.getId());
+                job.setExcelReportUrl(cycle.getExcelReportUrl());
+                job.setActiveLock(null);
+                job.setFinishedAt(LocalDateTime.now());
+            });
+            log.info("Close-cycle job {} completed, cycle {}", jobId, cycle.getId());
+        } catch (IOException | RuntimeException e) {
+            log.error("Close-cycle job {} failed", jobId, e);
+            fail(jobId, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Get the current state of a job.
+     */
+    public CloseCycleJobDTO getJob(UUID id) {
+        return jobRepository.findById(id)
+                .map(this::toDTO)
+                .orElseThrow(() -> new EntityNotFoundException("Cierre de ciclo no encontrado con ID: " + id));
+    }
+
+    private void fail(UUID jobId, Exception e) {
+        update(jobId, job -> {
+            job.setStatus(CloseCycleJobStatus.FAILED);
+            job.setError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            job.setActiveLock(null);
+            job.setFinishedAt(LocalDateTime.now());
+        });
+    }
+
+    private void update(UUID jobId, Consumer<CloseCycleJob> change) {
+        jobRepository.findById(jobId).ifPresent(job -> {
+            change.accept(job);
+            jobRepository.save(job);
+            jobRepository.heartbeat(jobId);
+        });
+    }
+
+    private CloseCycleJobDTO toDTO(CloseCycleJob job) {
+        return CloseCycleJobDTO.builder()
+                .id(job.getId())
+                .status(job.getStatus())
+                .phase(job.getPhase())
+                .rowsProcessed(job.getRowsProcessed())
+                .totalRows(job.getTotalRows())
+                .cycleId(job.getCycleId())
+                .excelReportUrl(job.getExcelReportUrl())
+                .error(job.getError())
+                .createdAt(job.getCreatedAt())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .build();
+    }
+
+    /**
+     * Persists progress on the job row; every update also records a
+     * heartbeat, which keeps the job from being considered stale.
+     */
+    private class JobProgress implements CloseCycleProgress {
+
+        private final UUID jobId;
+
+        private JobProgress(UUID jobId) {
+            this.jobId = jobId;
+        }
+
+        @Override
+        public void phase(CloseCyclePhase phase, long totalRows) {
+            update(jobId, job -> {
+                job.setPhase(phase);
+                job.setTotalRows(totalRows);
+                job.setRowsProcessed(0);
+            });
+        }
+
+        @Override
+        public void rowsProcessed(long rows) {
+            update(jobId, job -> job.setRowsProcessed(rows));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.elmayorista.report;
+
+/**
+ * Status of a close-cycle job.
+ */
+public enum CloseCycleJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,12 @@
+package com.elmayorista.report;
+
+/**
+ * Step a running close-cycle job is in.
+ */
+public enum CloseCyclePhase {
+    LOADING,
+    RENDERING,
+    UPLOADING,
+    SETTLING,
+    DONE
+}
@@ -0,0 +1,30 @@
+package com.elmayorista.report;
+
+/**
+ * Receives progress updates while a cycle is being closed.
+ */
+public interface CloseCycleProgress {
+
+    /**
+     * Progress listener that ignores every update.
+     */
+    CloseCycleProgress NONE = new CloseCycleProgress() {
+        @Override
+        public void phase(CloseCyclePhase phase, long totalRows) {
+        }
+
+        @Override
+        public void rowsProcessed(long rows) {
+        }
+    };
+
+    /**
+     * The close moved to a new phase, which will go through {@code totalRows} rows.
+     */
+    void phase(CloseCyclePhase phase, long totalRows);
+
+    /**
+     * Total rows processed so far in the current phase.
+     */
+    void rowsProcessed(long rows);
+}
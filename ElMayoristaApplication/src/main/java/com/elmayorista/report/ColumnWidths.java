@@ -0,0 +1,53 @@
+package com.elmayorista.report;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+
+import java.util.Arrays;
+
+/**
+ * Computes column widths from the length of the text written to a sheet.
+ * It replaces {@code autoSizeColumn}, which measures every cell with AWT font
+ * metrics and is very slow on headless servers. Rows must be tracked as they
+ * are written, before a streaming sheet flushes them.
+ */
+public class ColumnWidths {
+
+    /**
+     * Excel's maximum column width is 255 characters; wider text is rare
+     * enough that capping keeps sheets readable.
+     */
+    private static final int MAX_CHARS = 80;
+    private static final int PADDING_CHARS = 2;
+
+    private final DataFormatter formatter = new DataFormatter();
+    private int[] maxChars = new int[0];
+
+    /**
+     * Record the displayed length of every cell in the row.
+     */
+    public void track(Row row) {
+        for (Cell cell : row) {
+            int column = cell.getColumnIndex();
+            if (column >= maxChars.length) {
+                maxChars = Arrays.copyOf(maxChars, column + 1);
+            }
+            int length = formatter.formatCellValue(cell).length();
+            if (length > maxChars[column]) {
+                maxChars[column] = length;
+            }
+        }
+    }
+
+    /**
+     * Set the width of every tracked column on the sheet.
+     */
+    public void apply(Sheet sheet) {
+        for (int column = 0; column < maxChars.length; column++) {
+            int chars = Math.min(maxChars[column], MAX_CHARS) + PADDING_CHARS;
+            sheet.setColumnWidth(column, chars * 256);
+        }
+    }
+}
@@ -0,0 +1,646 @@
+package com.elmayorista.report;
+
+import com.elmayorista.customer.CustomerFiado;
+import com.elmayorista.fiado.Fiado;
+import com.elmayorista.sale.SaleReportRow;
+import com.elmayorista.sale.SellerSaleTotals;
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.TextStyle;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Renders the cycle-close workbooks (Ventas, Fiados, Televisores) with the
+ * streaming SXSSF engine.
+ * Only the last {@link #ROW_WINDOW} rows of each sheet stay in memory; older
+ * rows are flushed to compressed temp files, so heap use does not grow with
+ * the number of sales.
+ */
+@Component
+public class CycleReportWriter {
+
+    /**
+     * Number of rows kept in memory per sheet before flushing to disk.
+     */
+    static final int ROW_WINDOW = 100;
+
+    private static final DateTimeFormatter SELLER_DATE_FORMAT =
+            DateTimeFormatter.ofPattern("dd-MMM", Locale.forLanguageTag("es-ES"));
+
+    /**
+     * Write the sales workbook: summary sheet plus one sheet per seller.
+     *
+     * @param sellerTotals Per-seller totals for the summary sheet, in the same
+     *                     seller order as {@code rows}.
+     * @param rows         Sales grouped by seller, streamed into the seller sheets.
+     * @param fiadoTotals  Pending employee fiado total per seller id, deducted on
+     *                     each seller's sheet.
+     */
+    public void writeSalesReport(List<SellerSaleTotals> sellerTotals, SaleRowSource rows,
+            Map<UUID, BigDecimal> fiadoTotals, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = newWorkbook();
+        try {
+            // ========== SUMMARY SHEET ==========
+            SXSSFSheet summarySheet = createSheet(workbook, "Resumen General");
+
+            // Styles are shared by every sheet of the workbook
+            ReportStyles styles = new ReportStyles(workbook);
+            CellStyle headerStyle = styles.header();
+            CellStyle currencyStyle = styles.currency();
+            ColumnWidths summaryWidths = new ColumnWidths();
+
+            // Create Header Row for Summary
+            Row headerRow = summarySheet.createRow(0);
+            String[] headers = {
+                    "VENDEDOR", "PERIODO", "TOTAL VENTAS SIN ENVÍO", "ENVÍO", "TOTAL VENTAS CON ENVÍO", "PORCENTAJE",
+                    "GANANCIA DEL VENDEDOR"
+            };
+
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            summaryWidths.track(headerRow);
+
+            int rowNum = 1;
+            BigDecimal grandTotalSubtotal = BigDecimal.ZERO;
+            BigDecimal grandTotalShipping = BigDecimal.ZERO;
+            BigDecimal grandTotalTotal = BigDecimal.ZERO;
+            BigDecimal grandTotalCommission = BigDecimal.ZERO;
+
+            Locale spanishLocale = Locale.forLanguageTag("es-ES");
+            String currentMonth = LocalDate.now().getMonth().getDisplayName(TextStyle.FULL, spanishLocale)
+                    .toUpperCase();
+
+            // Add seller rows to summary
+            Map<UUID, BigDecimal> percentages = new HashMap<>();
+            for (SellerSaleTotals totals : sellerTotals) {
+                BigDecimal percentage = totals.commissionPercentage() != null ? totals.commissionPercentage()
+                        : BigDecimal.ZERO;
+                percentages.put(totals.sellerId(), percentage);
+
+                Row row = summarySheet.createRow(rowNum++);
+                row.createCell(0).setCellValue(totals.sellerName());
+                row.createCell(1).setCellValue(currentMonth);
+
+                Cell cellSub = row.createCell(2);
+                cellSub.setCellValue(totals.subtotal().doubleValue());
+                cellSub.setCellStyle(currencyStyle);
+
+                Cell cellShip = row.createCell(3);
+                cellShip.setCellValue(totals.shipping().doubleValue());
+                cellShip.setCellStyle(currencyStyle);
+
+                Cell cellTot = row.createCell(4);
+                cellTot.setCellValue(totals.total().doubleValue());
+                cellTot.setCellStyle(currencyStyle);
+
+                row.createCell(5).setCellValue(percentage + "%");
+
+                Cell cellComm = row.createCell(6);
+                cellComm.setCellValue(totals.commission().doubleValue());
+                cellComm.setCellStyle(currencyStyle);
+                summaryWidths.track(row);
+
+                grandTotalSubtotal = grandTotalSubtotal.add(totals.subtotal());
+                grandTotalShipping = grandTotalShipping.add(totals.shipping());
+                grandTotalTotal = grandTotalTotal.add(totals.total());
+                grandTotalCommission = grandTotalCommission.add(totals.commission());
+            }
+
+            // Add TOTAL row to summary
+            summaryWidths.track(addTotalRow(summarySheet, rowNum, currentMonth, grandTotalSubtotal,
+                    grandTotalShipping, grandTotalTotal, grandTotalCommission, styles));
+
+            // Size columns in summary
+            summaryWidths.apply(summarySheet);
+
+            // ========== INDIVIDUAL SELLER SHEETS ==========
+            // Rows arrive grouped by seller: a sheet is finished when the next seller starts
+            SellerSheet[] current = new SellerSheet[1];
+            rows.forEach(sale -> {
+                if (current[0] == null || !current[0].sellerId.equals(sale.sellerId())) {
+                    if (current[0] != null) {
+                        finishSellerSheet(current[0], fiadoTotals, styles);
+                    }
+                    current[0] = startSellerSheet(workbook, sale, percentages, styles);
+                }
+                addSellerSaleRow(current[0], sale, styles);
+            });
+            if (current[0] != null) {
+                finishSellerSheet(current[0], fiadoTotals, styles);
+            }
+
+            workbook.write(out);
+        } finally {
+            release(workbook);
+        }
+    }
+
+    /**
+     * Write the fiados workbook with 2 sheets: CLIENTES and EMPLEADOS.
+     */
+    public void writeFiadosReport(List<Fiado> employeeFiados, List<CustomerFiado> customerFiados,
+            OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = newWorkbook();
+        try {
+            ReportStyles styles = new ReportStyles(workbook);
+            CellStyle headerStyle = styles.header();
+            CellStyle currencyStyle = styles.currency();
+
+            Locale spanishLocale = Locale.forLanguageTag("es-ES");
+            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MMM", spanishLocale);
+
+            // ========== CLIENTES SHEET ==========
+            SXSSFSheet clientesSheet = createSheet(workbook, "CLIENTES");
+            String[] clienteHeaders = {
+                    "FECHA DE VENTA", "CLIENTE", "CÉDULA CLIENTE", "TELÉFONO", "N° DE FACTURA",
+                    "MONTO TOTAL", "ABONOS PARCIALES", "SALDO TOTAL", "FECHA DE ABONOS",
+                    "FORMA DE PAGO", "ESTADO", "PLAZO APROBADO", "ORIGEN / VENDEDOR", "OBSERVACIONES"
+            };
+
+            Row clienteHeaderRow = clientesSheet.createRow(0);
+            for (int i = 0; i < clienteHeaders.length; i++) {
+                Cell cell = clienteHeaderRow.createCell(i);
+                cell.setCellValue(clienteHeaders[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            ColumnWidths clientesWidths = new ColumnWidths();
+            clientesWidths.track(clienteHeaderRow);
+
+            int rowNum = 1;
+            for (CustomerFiado cf : customerFiados) {
+                Row row = clientesSheet.createRow(rowNum++);
+
+                // Fecha de venta
+                String dateStr = cf.getCreatedAt() != null ? cf.getCreatedAt().format(dateFormatter) : "-";
+                row.createCell(0).setCellValue(dateStr);
+
+                // Cliente
+                row.createCell(1).setCellValue(
+                        cf.getCustomer() != null ? cf.getCustomer().getFullName() : "-");
+
+                // Cédula cliente
+                row.createCell(2).setCellValue(
+                        cf.getCustomer() != null && cf.getCustomer().getIdNumber() != null
+                                ? cf.getCustomer().getIdNumber()
+                                : "");
+
+                // Teléfono
+                row.createCell(3).setCellValue(
+                        cf.getCustomer() != null && cf.getCustomer().getPhoneNumber() != null
+                                ? cf.getCustomer().getPhoneNumber()
+                                : "");
+
+                // N° de factura
+                row.createCell(4).setCellValue(cf.getItemName() != null ? cf.getItemName() : "");
+
+                // Monto total
+                Cell montoCell = row.createCell(5);
+                montoCell.setCellValue(cf.getPrice() != null ? cf.getPrice().doubleValue() : 0);
+                montoCell.setCellStyle(currencyStyle);
+
+                // Abonos parciales (vacío)
+                row.createCell(6).setCellValue("");
+
+                // Saldo total (= monto total sin abonos)
+                Cell saldoCell = row.createCell(7);
+                saldoCell.setCellValue(cf.getPrice() != null ? cf.getPrice().doubleValue() : 0);
+                saldoCell.setCellStyle(currencyStyle);
+
+                // Fecha de abonos (vacío)
+                row.createCell(8).setCellValue("");
+
+                // Forma de pago (vacío)
+                row.createCell(9).setCellValue("");
+
+                // Estado
+                row.createCell(10).setCellValue(
+                        cf.getStatus() != null ? cf.getStatus().name() : "PENDIENTE");
+
+                // Plazo aprobado (vacío)
+                row.createCell(11).setCellValue("");
+
+                // Origen / Vendedor
+                row.createCell(12).setCellValue(
+                        cf.getSeller() != null ? cf.getSeller().getFullName() : "-");
+
+                // Observaciones (vacío)
+                row.createCell(13).setCellValue("");
+                clientesWidths.track(row);
+            }
+
+            clientesWidths.apply(clientesSheet);
+
+            // ========== EMPLEADOS SHEET ==========
+            SXSSFSheet empleadosSheet = createSheet(workbook, "EMPLEADOS");
+            String[] empleadoHeaders = {
+                    "FECHA DE VENTA", "NOMBRE", "CÉDULA", "TELÉFONO", "N° DE FACTURA",
+                    "MONTO TOTAL", "ABONOS PARCIALES", "SALDO TOTAL", "FECHA DE ABONOS",
+                    "FORMA DE PAGO", "ESTADO", "PLAZO APROBADO", "ORIGEN / VENDEDOR", "OBSERVACIONES"
+            };
+
+            Row empleadoHeaderRow = empleadosSheet.createRow(0);
+            for (int i = 0; i < empleadoHeaders.length; i++) {
+                Cell cell = empleadoHeaderRow.createCell(i);
+                cell.setCellValue(empleadoHeaders[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            ColumnWidths empleadosWidths = new ColumnWidths();
+            empleadosWidths.track(empleadoHeaderRow);
+
+            rowNum = 1;
+            for (Fiado fiado : employeeFiados) {
+                Row row = empleadosSheet.createRow(rowNum++);
+
+                // Fecha de venta
+                String dateStr = fiado.getCreatedAt() != null ? fiado.getCreatedAt().format(dateFormatter) : "-";
+                row.createCell(0).setCellValue(dateStr);
+
+                // Nombre (seller)
+                row.createCell(1).setCellValue(
+                        fiado.getSeller() != null ? fiado.getSeller().getFullName() : "-");
+
+                // Cédula (vacío - User no tiene cédula)
+                row.createCell(2).setCellValue("");
+
+                // Teléfono
+                row.createCell(3).setCellValue(
+                        fiado.getSeller() != null && fiado.getSeller().getPhoneNumber() != null
+                                ? fiado.getSeller().getPhoneNumber()
+                                : "");
+
+                // N° de factura
+                row.createCell(4).setCellValue(fiado.getItemName() != null ? fiado.getItemName() : "");
+
+                // Monto total
+                Cell montoCell = row.createCell(5);
+                montoCell.setCellValue(fiado.getPrice() != null ? fiado.getPrice().doubleValue() : 0);
+                montoCell.setCellStyle(currencyStyle);
+
+                // Abonos parciales (vacío)
+                row.createCell(6).setCellValue("");
+
+                // Saldo total
+                Cell saldoCell = row.createCell(7);
+                saldoCell.setCellValue(fiado.getPrice() != null ? fiado.getPrice().doubleValue() : 0);
+                saldoCell.setCellStyle(currencyStyle);
+
+                // Fecha de abonos (vacío)
+                row.createCell(8).setCellValue("");
+
+                // Forma de pago (vacío)
+                row.createCell(9).setCellValue("");
+
+                // Estado
+                row.createCell(10).setCellValue(
+                        fiado.getStatus() != null ? fiado.getStatus().name() : "PENDIENTE");
+
+                // Plazo aprobado (vacío)
+                row.createCell(11).setCellValue("");
+
+                // Origen / Vendedor
+                row.createCell(12).setCellValue(
+                        fiado.getSeller() != null ? fiado.getSeller().getFullName() : "-");
+
+                // Observaciones (vacío)
+                row.createCell(13).setCellValue("");
+                empleadosWidths.track(row);
+            }
+
+            empleadosWidths.apply(empleadosSheet);
+
+            workbook.write(out);
+        } finally {
+            release(workbook);
+        }
+    }
+
+    /**
+     * Write the TV sales workbook.
+     */
+    public void writeTvSalesReport(SaleRowSource tvSales, OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = newWorkbook();
+        try {
+            CellStyle headerStyle = new ReportStyles(workbook).header();
+
+            Locale spanishLocale = Locale.forLanguageTag("es-ES");
+            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MMM", spanishLocale);
+
+            SXSSFSheet sheet = createSheet(workbook, "TELEVISORES");
+            String[] headers = {
+                    "VENDEDOR / ORIGEN", "FECHA DE COMPRA", "CLIENTE", "CEDULA CLIENTE",
+                    "TELEFONO", "MARCA", "SERIE", "OBSERVACIONES"
+            };
+
+            Row headerRow = sheet.createRow(0);
+            for (int i = 0; i < headers.length; i++) {
+                Cell cell = headerRow.createCell(i);
+                cell.setCellValue(headers[i]);
+                cell.setCellStyle(headerStyle);
+            }
+            ColumnWidths widths = new ColumnWidths();
+            widths.track(headerRow);
+
+            int[] rowNum = { 1 };
+            tvSales.forEach(sale -> {
+                Row row = sheet.createRow(rowNum[0]++);
+
+                // Vendedor / Origen
+                row.createCell(0).setCellValue(sale.sellerName() != null ? sale.sellerName() : "-");
+
+                // Fecha de compra
+                String dateStr = sale.orderDate() != null ? sale.orderDate().format(dateFormatter) : "-";
+                row.createCell(1).setCellValue(dateStr);
+
+                // Cliente
+                row.createCell(2).setCellValue(sale.customerName() != null ? sale.customerName() : "-");
+
+                // Cédula cliente
+                row.createCell(3).setCellValue(
+                        sale.customerIdNumber() != null ? sale.customerIdNumber() : "");
+
+                // Teléfono
+                row.createCell(4).setCellValue(
+                        sale.customerPhone() != null ? sale.customerPhone() : "");
+
+                // Marca (tvModel)
+                row.createCell(5).setCellValue(sale.tvModel() != null ? sale.tvModel() : "");
+
+                // Serie (tvSerialNumber)
+                row.createCell(6).setCellValue(
+                        sale.tvSerialNumber() != null ? sale.tvSerialNumber() : "");
+
+                // Observaciones (vacío)
+                row.createCell(7).setCellValue("");
+                widths.track(row);
+            });
+
+            widths.apply(sheet);
+
+            workbook.write(out);
+        } finally {
+            release(workbook);
+        }
+    }
+
+    /**
+     * Create a streaming workbook that keeps a bounded row window per sheet.
+     */
+    private SXSSFWorkbook newWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+    /**
+     * Create a sheet. Column widths are set with {@link ColumnWidths} instead of
+     * autoSizeColumn, so no per-cell font measuring is tracked.
+     */
+    private SXSSFSheet createSheet(SXSSFWorkbook workbook, String name) {
+        return workbook.createSheet(name);
+    }
+
+    /**
+     * Delete the temp files backing the flushed rows and close the workbook.
+     */
+    private void release(SXSSFWorkbook workbook) throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+
+    /**
+     * Create individual seller sheet and its header row.
+     */
+    private SellerSheet startSellerSheet(SXSSFWorkbook workbook, SaleReportRow firstSale,
+            Map<UUID, BigDecimal> percentages, ReportStyles styles) {
+        // Create sheet with seller's name (sanitize for Excel sheet name)
+        String sheetName = firstSale.sellerName().replaceAll("[\\\\/:*?\"<>|]", "_");
+        if (sheetName.length() > 31) {
+            sheetName = sheetName.substring(0, 31);
+        }
+        SellerSheet sellerSheet = new SellerSheet(firstSale.sellerId(),
+                percentages.getOrDefault(firstSale.sellerId(), BigDecimal.ZERO),
+                createSheet(workbook, sheetName));
+
+        // Headers for individual seller sheet
+        Row sellerHeaderRow = sellerSheet.sheet.createRow(0);
+        String[] sellerHeaders = {
+                "FECHA", "CLIENTE", "SUBTOTAL", "VALOR DE ENVÍO", "TOTAL",
+                "REGISTRO DE PAGO", "NÚMERO DE DOCUMENTO (PAGO)", "NÚMERO DE PEDIDO"
+        };
+
+        for (int i = 0; i < sellerHeaders.length; i++) {
+            Cell cell = sellerHeaderRow.createCell(i);
+            cell.setCellValue(sellerHeaders[i]);
+            cell.setCellStyle(styles.header());
+        }
+        sellerSheet.widths.track(sellerHeaderRow);
+        return sellerSheet;
+    }
+
+    /**
+     * Add one sale to its seller's sheet.
+     */
+    private void addSellerSaleRow(SellerSheet sellerSheet, SaleReportRow sale, ReportStyles styles) {
+        CellStyle currencyStyle = styles.currency();
+        Row saleRow = sellerSheet.sheet.createRow(sellerSheet.rowNum++);
+
+        // Date
+        String dateStr = sale.orderDate() != null
+                ? sale.orderDate().format(SELLER_DATE_FORMAT)
+                : "-";
+        saleRow.createCell(0).setCellValue(dateStr);
+
+        // Client
+        saleRow.createCell(1).setCellValue(sale.customerName() != null ? sale.customerName() : "-");
+
+        // Subtotal
+        BigDecimal sub = sale.subtotal() != null ? sale.subtotal() : BigDecimal.ZERO;
+        Cell subCell = saleRow.createCell(2);
+        subCell.setCellValue(sub.doubleValue());
+        subCell.setCellStyle(currencyStyle);
+        sellerSheet.subtotal = sellerSheet.subtotal.add(sub);
+
+        // Shipping
+        BigDecimal ship = sale.shipping() != null ? sale.shipping() : BigDecimal.ZERO;
+        Cell shipCell = saleRow.createCell(3);
+        shipCell.setCellValue(ship.doubleValue());
+        shipCell.setCellStyle(currencyStyle);
+        sellerSheet.shipping = sellerSheet.shipping.add(ship);
+
+        // Total
+        BigDecimal tot = sale.total() != null ? sale.total() : BigDecimal.ZERO;
+        Cell totCell = saleRow.createCell(4);
+        totCell.setCellValue(tot.doubleValue());
+        totCell.setCellStyle(currencyStyle);
+        sellerSheet.total = sellerSheet.total.add(tot);
+
+        // Payment method and document number (latest payment)
+        saleRow.createCell(5).setCellValue(sale.paymentMethod() != null ? sale.paymentMethod().toString() : "-");
+        saleRow.createCell(6).setCellValue(sale.paymentReceiptUrl() != null ? sale.paymentReceiptUrl() : "-");
+
+        // Order number
+        saleRow.createCell(7).setCellValue(sale.orderNumber() != null ? sale.orderNumber() : "-");
+        sellerSheet.widths.track(saleRow);
+    }
+
+    /**
+     * Add the summary rows at the bottom of a seller sheet and size its columns.
+     */
+    private void finishSellerSheet(SellerSheet sellerSheet, Map<UUID, BigDecimal> fiadoTotals,
+            ReportStyles styles) {
+        BigDecimal totalFiados = fiadoTotals.getOrDefault(sellerSheet.sellerId, BigDecimal.ZERO);
+        addSellerSummaryRows(sellerSheet.sheet, sellerSheet.rowNum, sellerSheet.commissionPercentage,
+                sellerSheet.subtotal, sellerSheet.shipping, sellerSheet.total, totalFiados, styles,
+                sellerSheet.widths);
+        sellerSheet.widths.apply(sellerSheet.sheet);
+    }
+
+    /**
+     * Add summary rows to seller sheet (total, commission, adelantos, a favor, a
+     * recibir).
+     */
+    private void addSellerSummaryRows(Sheet sheet, int startRow, BigDecimal commissionPercentage,
+            BigDecimal subtotal, BigDecimal shipping, BigDecimal total,
+            BigDecimal totalFiados, ReportStyles styles, ColumnWidths widths) {
+        CellStyle currencyStyle = styles.currency();
+        // Total en ventas row
+        Row totalRow = sheet.createRow(startRow);
+        totalRow.createCell(0).setCellValue("total en ventas");
+
+        Cell subTotalCell = totalRow.createCell(2);
+        subTotalCell.setCellValue(subtotal.doubleValue());
+        subTotalCell.setCellStyle(currencyStyle);
+
+        Cell shipTotalCell = totalRow.createCell(3);
+        shipTotalCell.setCellValue(shipping.doubleValue());
+        shipTotalCell.setCellStyle(currencyStyle);
+
+        Cell totalTotalCell = totalRow.createCell(4);
+        totalTotalCell.setCellValue(total.doubleValue());
+        totalTotalCell.setCellStyle(currencyStyle);
+
+        // Commission row
+        BigDecimal commissionAmount = total.multiply(commissionPercentage)
+                .divide(new BigDecimal("100"), 2, java.math.RoundingMode.HALF_UP);
+
+        Row commissionRow = sheet.createRow(startRow + 1);
+        commissionRow.createCell(0).setCellValue("comision " + commissionPercentage + "%");
+
+        Cell commCell = commissionRow.createCell(2);
+        commCell.setCellValue(commissionAmount.doubleValue());
+        commCell.setCellStyle(styles.highlight(IndexedColors.YELLOW));
+
+        // Adelantos row
+        Row adelantosRow = sheet.createRow(startRow + 2);
+        adelantosRow.createCell(0).setCellValue("adelantos");
+
+        Cell adelantosCell = adelantosRow.createCell(2);
+        adelantosCell.setCellValue(totalFiados.doubleValue());
+        adelantosCell.setCellStyle(styles.highlight(IndexedColors.LIGHT_ORANGE));
+
+        // A favor row - only shows when seller has excess commission after fiados
+        Row aFavorRow = sheet.createRow(startRow + 3);
+        aFavorRow.createCell(0).setCellValue("a favor");
+
+        if (commissionAmount.compareTo(totalFiados) > 0) {
+            Cell aFavorCell = aFavorRow.createCell(2);
+            aFavorCell.setCellValue(commissionAmount.subtract(totalFiados).doubleValue());
+            aFavorCell.setCellStyle(currencyStyle);
+        }
+
+        // Debe row - only shows when fiados exceed commission (seller owes)
+        Row debeRow = sheet.createRow(startRow + 4);
+        debeRow.createCell(0).setCellValue("debe");
+
+        if (totalFiados.compareTo(commissionAmount) > 0) {
+            Cell debeCell = debeRow.createCell(2);
+            debeCell.setCellValue(totalFiados.subtract(commissionAmount).doubleValue());
+            debeCell.setCellStyle(styles.owed());
+        }
+
+        // A recibir row
+        BigDecimal toReceive = commissionAmount.subtract(totalFiados).max(BigDecimal.ZERO);
+
+        Row aRecibirRow = sheet.createRow(startRow + 5);
+        aRecibirRow.createCell(0).setCellValue("a recibir");
+
+        Cell toReceiveCell = aRecibirRow.createCell(2);
+        toReceiveCell.setCellValue(toReceive.doubleValue());
+        toReceiveCell.setCellStyle(styles.highlight(IndexedColors.LIGHT_BLUE));
+
+        for (int i = 0; i <= 5; i++) {
+            widths.track(sheet.getRow(startRow + i));
+        }
+    }
+
+    /**
+     * Add total row to summary sheet.
+     */
+    private Row addTotalRow(Sheet sheet, int rowNum, String month,
+            BigDecimal totalSubtotal, BigDecimal totalShipping, BigDecimal totalTotal,
+            BigDecimal totalCommission, ReportStyles styles) {
+        CellStyle currencyStyle = styles.currency();
+        Row totalRow = sheet.createRow(rowNum);
+
+        Cell labelCell = totalRow.createCell(0);
+        labelCell.setCellValue("TOTAL:");
+        labelCell.setCellStyle(styles.total());
+
+        totalRow.createCell(1).setCellValue(month);
+
+        Cell totSub = totalRow.createCell(2);
+        totSub.setCellValue(totalSubtotal.doubleValue());
+        totSub.setCellStyle(currencyStyle);
+
+        Cell totShip = totalRow.createCell(3);
+        totShip.setCellValue(totalShipping.doubleValue());
+        totShip.setCellStyle(currencyStyle);
+
+        Cell totTot = totalRow.createCell(4);
+        totTot.setCellValue(totalTotal.doubleValue());
+        totTot.setCellStyle(currencyStyle);
+
+        totalRow.createCell(5).setCellValue("");
+
+        Cell totComm = totalRow.createCell(6);
+        totComm.setCellValue(totalCommission.doubleValue());
+        totComm.setCellStyle(currencyStyle);
+        return totalRow;
+    }
+
+    /**
+     * A seller sheet being filled, with its running totals.
+     */
+    private static final class SellerSheet {
+
+        private final UUID sellerId;
+        private final BigDecimal commissionPercentage;
+        private final SXSSFSheet sheet;
+        private final ColumnWidths widths = new ColumnWidths();
+        private int rowNum = 1;
+        private BigDecimal subtotal = BigDecimal.ZERO;
+        private BigDecimal shipping = BigDecimal.ZERO;
+        private BigDecimal total = BigDecimal.ZERO;
+
+        private SellerSheet(UUID sellerId, BigDecimal commissionPercentage, SXSSFSheet sheet) {
+            this.sellerId = sellerId;
+            this.commissionPercentage = commissionPercentage;
+            this.sheet = sheet;
+        }
+    }
+}
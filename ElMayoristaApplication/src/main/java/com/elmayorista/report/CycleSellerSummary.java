@@ -0,0 +1,78 @@
+package com.elmayorista.report;
+
+import com.elmayorista.user.User;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entity holding one seller's totals for a closed cycle, written when the
+ * cycle is closed so historical per-seller figures never require reopening
+ * the Excel reports.
+ */
+@Entity
+@Table(name = "cycle_seller_summaries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_cycle_seller_summaries_cycle_seller",
+                columnNames = { "cycle_id", "seller_id" }),
+        indexes = @Index(name = "idx_cycle_seller_summaries_seller_cycle", columnList = "seller_id, cycle_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CycleSellerSummary {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cycle_id", nullable = false)
+    private Cycle cycle;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "seller_id", nullable = false)
+    private User seller;
+
+    /**
+     * Seller name at closing time, kept so the history reads the same after a rename.
+     */
+    @Column(name = "seller_name", nullable = false)
+    private String sellerName;
+
+    @Column(name = "commission_percentage", precision = 5, scale = 2)
+    private BigDecimal commissionPercentage;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal subtotal = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal shipping = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal total = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal commission = BigDecimal.ZERO;
+
+    @Column(name = "fiado_deductions", nullable = false, precision = 12, scale = 2)
+    @Builder.Default
+    private BigDecimal fiadoDeductions = BigDecimal.ZERO;
+
+    @Column(name = "sales_count", nullable = false)
+    @Builder.Default
+    private Integer salesCount = 0;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
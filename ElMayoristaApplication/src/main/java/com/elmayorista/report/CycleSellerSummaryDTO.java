@@ -0,0 +1,33 @@
+package com.elmayorista.report;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * DTO for CycleSellerSummary entity.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CycleSellerSummaryDTO {
+
+    private Long cycleId;
+    private LocalDateTime cycleStartDate;
+    private LocalDateTime cycleEndDate;
+    private UUID sellerId;
+    private String sellerName;
+    private BigDecimal commissionPercentage;
+    private BigDecimal subtotal;
+    private BigDecimal shipping;
+    private BigDecimal total;
+    private BigDecimal commission;
+    private BigDecimal fiadoDeductions;
+    private Integer salesCount;
+}
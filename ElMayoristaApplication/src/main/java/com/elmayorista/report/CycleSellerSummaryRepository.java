@@ -0,0 +1,29 @@
+package com.elmayorista.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Repository for CycleSellerSummary entity.
+ */
+@Repository
+public interface CycleSellerSummaryRepository extends JpaRepository<CycleSellerSummary, Long> {
+
+    /**
+     * Per-seller totals of one cycle, by seller name.
+     */
+    @Query("SELECT s FROM CycleSellerSummary s JOIN FETCH s.cycle " +
+            "WHERE s.cycle.id = :cycleId ORDER BY s.sellerName")
+    List<CycleSellerSummary> findByCycleId(Long cycleId);
+
+    /**
+     * A seller's totals across all closed cycles (most recent first).
+     */
+    @Query("SELECT s FROM CycleSellerSummary s JOIN FETCH s.cycle c " +
+            "WHERE s.seller.id = :sellerId ORDER BY c.endDate DESC")
+    List<CycleSellerSummary> findBySellerId(UUID sellerId);
+}
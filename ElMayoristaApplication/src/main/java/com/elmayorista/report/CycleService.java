@@ -4,32 +4,47 @@ import com.elmayorista.customer.CustomerFiado;
 import com.elmayorista.customer.CustomerFiadoRepository;
 import com.elmayorista.fiado.Fiado;
 import com.elmayorista.fiado.FiadoRepository;
-import com.elmayorista.fiado.FiadoStatus;
-import com.elmayorista.payment.Payment;
-import com.elmayorista.sale.Sale;
+import com.elmayorista.sale.SaleRef;
+import com.elmayorista.sale.SaleReportRow;
 import com.elmayorista.sale.SaleRepository;
 import com.elmayorista.sale.SaleStatus;
+import com.elmayorista.sale.SaleTotals;
 import com.elmayorista.sale.SaleType;
+import com.elmayorista.sale.SellerSaleTotals;
 import com.elmayorista.service.FileStorageService;
-import com.elmayorista.user.User;
+import com.elmayorista.service.MultipartUploadOutputStream;
+import com.elmayorista.user.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.ByteArrayOutputStream;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.TextStyle;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -41,19 +56,45 @@ import java.util.zip.ZipOutputStream;
 @RequiredArgsConstructor
 public class CycleService {
 
+    private static final int ZIP_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Rows settled per bulk UPDATE and transaction, so no transaction stays open
+     * for long and the IN list stays well below the bind parameter limit.
+     */
+    private static final int SETTLE_CHUNK_SIZE = 500;
+
+    /**
+     * Sale ids per streamed report query. Ids are in report order, so the
+     * chunks can be streamed one after the other.
+     */
+    private static final int STREAM_CHUNK_SIZE = 1000;
+
+    /**
+     * How often a running render reports progress, which also keeps the
+     * close-cycle job from being considered stale.
+     */
+    private static final long RENDER_PROGRESS_SECONDS = 30;
+
     private final SaleRepository saleRepository;
     private final CycleRepository cycleRepository;
     private final FileStorageService fileStorageService;
     private final FiadoRepository fiadoRepository;
     private final CustomerFiadoRepository customerFiadoRepository;
+    private final CycleReportWriter cycleReportWriter;
+    private final ReportExecutor reportExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final CycleSellerSummaryRepository cycleSellerSummaryRepository;
+    private final UserRepository userRepository;
+    private final CycleSettlementItemRepository cycleSettlementItemRepository;
 
     /**
      * Get current cycle statistics (pending to close).
      */
     public CycleDTO getCurrentCycleStats() {
-        List<Sale> sales = saleRepository.findByStatusAndCommissionSettledFalse(SaleStatus.APPROVED);
+        SaleTotals totals = saleRepository.sumUnsettledByStatus(SaleStatus.APPROVED);
 
-        if (sales.isEmpty()) {
+        if (totals.salesCount() == 0) {
             return CycleDTO.builder()
                     .totalSales(BigDecimal.ZERO)
                     .totalCommissions(BigDecimal.ZERO)
@@ -62,25 +103,12 @@ public class CycleService {
                     .build();
         }
 
-        LocalDateTime startDate = sales.stream()
-                .map(Sale::getOrderDate)
-                .min(LocalDateTime::compareTo)
-                .orElse(LocalDateTime.now());
-
-        BigDecimal totalSales = sales.stream()
-                .map(sale -> sale.getTotal() != null ? sale.getTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalCommissions = sales.stream()
-                .map(sale -> sale.getCommissionAmount() != null ? sale.getCommissionAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
         return CycleDTO.builder()
-                .startDate(startDate)
+                .startDate(totals.firstOrderDate())
                 .endDate(LocalDateTime.now())
-                .totalSales(totalSales)
-                .totalCommissions(totalCommissions)
-                .salesCount(sales.size())
+                .totalSales(totals.totalSales())
+                .totalCommissions(totals.totalCommissions())
+                .salesCount((int) totals.salesCount())
                 .status(CycleStatus.OPEN)
                 .build();
     }
@@ -103,112 +131,295 @@ public class CycleService {
                 .orElse(null);
     }
 
+    /**
+     * Whether there are approved sales waiting to be settled, i.e. whether the
+     * current cycle can be closed.
+     */
+    public boolean hasPendingSales() {
+        return saleRepository.existsByStatusAndCommissionSettledFalse(SaleStatus.APPROVED);
+    }
+
     /**
      * Close the current billing cycle.
-     * Marks all approved sales as commission settled and generates an Excel report.
+     * Marks all approved sales as commission settled and generates the ZIP report,
+     * which is uploaded to storage and, when {@code download} is given, streamed to
+     * it at the same time. If the download fails midway the upload still completes,
+     * so the report remains available from the closed cycle.
+     * <p>
+     * No transaction spans the whole close: data is loaded in a read-only
+     * transaction, the report is built outside any transaction, and settlement
+     * runs in short chunked transactions. Only the rows loaded at the start are
+     * settled, so sales approved while the report is generated stay for the next
+     * cycle. Those rows are recorded with the cycle, and a cycle whose
+     * settlement was interrupted is finished before a new one is closed.
      */
-    @Transactional
-    public byte[] closeCycle() throws IOException {
-        // Fetch all approved sales that haven't been settled
-        List<Sale> sales = saleRepository.findByStatusAndCommissionSettledFalse(SaleStatus.APPROVED);
+    public Cycle closeCycle(OutputStream download, CloseCycleProgress progress) throws IOException {
+        resumeSettlements(progress);
+
+        // Snapshot which sales are closed, their totals and the fiados in one short
+        // read-only transaction. Sales are referenced by id only; their rows are
+        // streamed while the report is written.
+        long loadStart = System.nanoTime();
+        progress.phase(CloseCyclePhase.LOADING, 0);
+        CycleSnapshot snapshot = snapshotTransaction().execute(status -> new CycleSnapshot(
+                saleRepository.findUnsettledRefsByStatus(SaleStatus.APPROVED),
+                saleRepository.sumUnsettledByStatus(SaleStatus.APPROVED),
+                saleRepository.sumUnsettledBySeller(SaleStatus.APPROVED),
+                fiadoRepository.findUnsettledWithSeller(),
+                customerFiadoRepository.findUnsettledWithSellerAndCustomer()));
+        List<SaleRef> sales = snapshot.sales();
+        List<SellerSaleTotals> sellerTotals = snapshot.sellerTotals();
+        List<Fiado> unsettledEmployeeFiados = snapshot.employeeFiados();
+        List<CustomerFiado> unsettledCustomerFiados = snapshot.customerFiados();
 
         if (sales.isEmpty()) {
             log.warn("No sales to close for this cycle");
             throw new IllegalStateException("No hay ventas aprobadas para cerrar el ciclo");
         }
+        log.info("Cycle close: loaded {} sales and {} fiados in {} ms", sales.size(),
+                unsettledEmployeeFiados.size() + unsettledCustomerFiados.size(), elapsedMillis(loadStart));
 
         // Calculate cycle dates and totals
-        LocalDateTime startDate = sales.stream()
-                .map(Sale::getOrderDate)
-                .min(LocalDateTime::compareTo)
-                .orElse(LocalDateTime.now());
+        LocalDateTime startDate = snapshot.totals().firstOrderDate();
 
         LocalDateTime endDate = LocalDateTime.now();
 
-        BigDecimal totalSalesAmount = sales.stream()
-                .map(sale -> sale.getTotal() != null ? sale.getTotal() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalSalesAmount = snapshot.totals().totalSales();
 
-        BigDecimal totalCommissions = sales.stream()
-                .map(sale -> sale.getCommissionAmount() != null ? sale.getCommissionAmount() : BigDecimal.ZERO)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalCommissions = snapshot.totals().totalCommissions();
 
-        // Fetch fiados data before generating reports
-        List<Fiado> unsettledEmployeeFiados = fiadoRepository.findBySettledInCycleFalse();
-        List<CustomerFiado> unsettledCustomerFiados = customerFiadoRepository.findBySettledInCycleFalse();
+        // Pending employee fiados per seller, deducted on the seller sheets and summaries
+        Map<UUID, BigDecimal> fiadoTotals = unsettledEmployeeFiados.stream()
+                .collect(Collectors.groupingBy(fiado -> fiado.getSeller().getId(),
+                        Collectors.reducing(BigDecimal.ZERO, Fiado::getPrice, BigDecimal::add)));
 
         // Filter TV sales from this cycle
-        List<Sale> tvSales = sales.stream()
-                .filter(s -> s.getSaleType() == SaleType.TV)
+        List<Long> saleIds = sales.stream().map(SaleRef::id).toList();
+        List<Long> tvSaleIds = sales.stream()
+                .filter(s -> s.saleType() == SaleType.TV)
+                .map(SaleRef::id)
                 .toList();
 
-        // Generate 3 Excel Reports
+        // Generate 3 Excel Reports in parallel (streamed to temp files, not kept in heap)
+        progress.phase(CloseCyclePhase.RENDERING, sales.size());
         String dateStr = LocalDate.now().toString();
-        byte[] ventasExcel = generateExcelReport(sales);
-        byte[] fiadosExcel = generateFiadosExcel(unsettledEmployeeFiados, unsettledCustomerFiados);
-        byte[] tvExcel = generateTvSalesExcel(tvSales);
-
-        // Package into ZIP
-        byte[] zipReport = packageAsZip(ventasExcel, fiadosExcel, tvExcel, dateStr);
-
-        // Upload ZIP to cloud storage
+        AtomicLong renderedRows = new AtomicLong();
+        SaleRowSource saleRows = streamRows(saleIds);
+        SaleRowSource countedSaleRows = action -> saleRows.forEach(row -> {
+            renderedRows.incrementAndGet();
+            action.accept(row);
+        });
+        List<Path> workbooks = renderInParallel(List.of(
+                new WorkbookTask("ventas",
+                        out -> cycleReportWriter.writeSalesReport(sellerTotals, countedSaleRows,
+                                fiadoTotals, out)),
+                new WorkbookTask("fiados",
+                        out -> cycleReportWriter.writeFiadosReport(unsettledEmployeeFiados,
+                                unsettledCustomerFiados, out)),
+                new WorkbookTask("televisores",
+                        out -> cycleReportWriter.writeTvSalesReport(streamRows(tvSaleIds), out))),
+                () -> progress.rowsProcessed(renderedRows.get()));
+        progress.rowsProcessed(sales.size());
+
+        // Stream the ZIP to the client and to cloud storage at the same time
+        progress.phase(CloseCyclePhase.UPLOADING, 0);
+        long zipStart = System.nanoTime();
         String filename = "Cierre_Ciclo_" + dateStr + ".zip";
-        String zipUrl = fileStorageService.uploadBytes(
-                zipReport,
-                filename,
-                "reports",
-                "application/zip");
-
-        // Create Cycle record
-        Cycle cycle = Cycle.builder()
-                .startDate(startDate)
-                .endDate(endDate)
-                .totalSales(totalSalesAmount)
-                .totalCommissions(totalCommissions)
-                .salesCount(sales.size())
-                .excelReportUrl(zipUrl)
-                .status(CycleStatus.CLOSED)
-                .build();
+        MultipartUploadOutputStream upload = fileStorageService.openUpload(filename, "reports", "application/zip");
+        long zipSize;
+        try {
+            ReportTee tee = new ReportTee(upload, download != null ? download : OutputStream.nullOutputStream());
+            writeZip(tee, workbooks.get(0), workbooks.get(1), workbooks.get(2), dateStr);
+            upload.close();
+            zipSize = tee.written;
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        } finally {
+            workbooks.forEach(this::deleteQuietly);
+        }
+        String zipUrl = upload.getUrl();
+        progress.rowsProcessed(zipSize);
+        log.info("Cycle close: streamed and uploaded ZIP ({} bytes) in {} ms", zipSize, elapsedMillis(zipStart));
+
+        // Settle the snapshot: sales, then the pending fiados of the sellers in this cycle
+        Set<UUID> sellerIds = sellerTotals.stream()
+                .map(SellerSaleTotals::sellerId)
+                .collect(Collectors.toSet());
+        List<Long> employeeFiadoIds = unsettledEmployeeFiados.stream()
+                .filter(fiado -> sellerIds.contains(fiado.getSeller().getId()))
+                .map(Fiado::getId)
+                .toList();
+        List<Long> customerFiadoIds = unsettledCustomerFiados.stream()
+                .filter(cf -> sellerIds.contains(cf.getSeller().getId()))
+                .map(CustomerFiado::getId)
+                .toList();
 
-        cycleRepository.save(cycle);
-        log.info("Cycle closed successfully. Total sales: {}, Total commissions: {}", totalSalesAmount,
-                totalCommissions);
+        // Create Cycle record together with its per-seller summaries and the rows it has to settle
+        Cycle cycle = transactionTemplate.execute(status -> {
+            Cycle saved = cycleRepository.save(Cycle.builder()
+                    .startDate(startDate)
+                    .endDate(endDate)
+                    .totalSales(totalSalesAmount)
+                    .totalCommissions(totalCommissions)
+                    .salesCount(sales.size())
+                    .excelReportUrl(zipUrl)
+                    .status(CycleStatus.SETTLING)
+                    .build());
+            cycleSellerSummaryRepository.saveAll(summarizeBySeller(saved, sellerTotals, fiadoTotals));
+            List<CycleSettlementItem> items = new ArrayList<>();
+            items.addAll(settlementItems(saved, CycleSettlementItemType.SALE, saleIds));
+            items.addAll(settlementItems(saved, CycleSettlementItemType.EMPLOYEE_FIADO, employeeFiadoIds));
+            items.addAll(settlementItems(saved, CycleSettlementItemType.CUSTOMER_FIADO, customerFiadoIds));
+            cycleSettlementItemRepository.saveAll(items);
+            return saved;
+        });
+        log.info("Cycle recorded. Total sales: {}, Total commissions: {}", totalSalesAmount, totalCommissions);
+
+        settle(cycle, progress);
+        log.info("Cycle {} closed successfully", cycle.getId());
+
+        progress.phase(CloseCyclePhase.DONE, 0);
+        return cycle;
+    }
 
-        // Mark sales as settled
-        for (Sale sale : sales) {
-            sale.setCommissionSettled(true);
+    /**
+     * Finishes the settlement of cycles whose close stopped after the cycle was
+     * recorded (a failed chunk, a restart), so their rows are not counted again.
+     */
+    private void resumeSettlements(CloseCycleProgress progress) {
+        for (Cycle cycle : cycleRepository.findByStatus(CycleStatus.SETTLING)) {
+            log.warn("Cycle close: resuming the settlement of cycle {}", cycle.getId());
+            settle(cycle, progress);
         }
-        saleRepository.saveAll(sales);
-
-        // Settle pending employee fiados for all sellers in this cycle
-        Map<User, List<Sale>> salesBySellerForFiados = sales.stream()
-                .collect(Collectors.groupingBy(Sale::getSeller));
-        for (User seller : salesBySellerForFiados.keySet()) {
-            List<Fiado> sellerFiados = fiadoRepository.findBySellerAndSettledInCycleFalse(seller);
-            for (Fiado fiado : sellerFiados) {
-                fiado.setStatus(FiadoStatus.SETTLED);
-                fiado.setSettledInCycle(true);
-            }
-            if (!sellerFiados.isEmpty()) {
-                fiadoRepository.saveAll(sellerFiados);
-                log.info("Settled {} employee fiados for seller: {}", sellerFiados.size(), seller.getFullName());
-            }
+    }
 
-            // Settle pending customer fiados for this seller
-            List<CustomerFiado> sellerCustomerFiados = customerFiadoRepository
-                    .findBySellerAndSettledInCycleFalse(seller);
-            for (CustomerFiado cf : sellerCustomerFiados) {
-                cf.setStatus(FiadoStatus.SETTLED);
-                cf.setSettledInCycle(true);
-            }
-            if (!sellerCustomerFiados.isEmpty()) {
-                customerFiadoRepository.saveAll(sellerCustomerFiados);
-                log.info("Settled {} customer fiados for seller: {}", sellerCustomerFiados.size(),
-                        seller.getFullName());
-            }
+    /**
+     * Settles the rows recorded for a cycle in short chunked transactions and
+     * marks the cycle CLOSED. Each chunk removes its items in the same
+     * transaction, so running this again only settles what is left.
+     */
+    private void settle(Cycle cycle, CloseCycleProgress progress) {
+        long start = System.nanoTime();
+        Long cycleId = cycle.getId();
+        List<Long> saleIds = cycleSettlementItemRepository.findItemIds(cycleId, CycleSettlementItemType.SALE);
+        List<Long> employeeFiadoIds = cycleSettlementItemRepository.findItemIds(cycleId,
+                CycleSettlementItemType.EMPLOYEE_FIADO);
+        List<Long> customerFiadoIds = cycleSettlementItemRepository.findItemIds(cycleId,
+                CycleSettlementItemType.CUSTOMER_FIADO);
+        progress.phase(CloseCyclePhase.SETTLING,
+                saleIds.size() + employeeFiadoIds.size() + customerFiadoIds.size());
+
+        long settled = 0;
+        int settledSales = 0;
+        for (List<Long> chunk : chunks(saleIds)) {
+            int count = settleChunk(cycleId, CycleSettlementItemType.SALE, chunk,
+                    saleRepository::settleCommissions);
+            settledSales += count;
+            settled += chunk.size();
+            progress.rowsProcessed(settled);
+        }
+        int settledEmployeeFiados = 0;
+        for (List<Long> chunk : chunks(employeeFiadoIds)) {
+            settledEmployeeFiados += settleChunk(cycleId, CycleSettlementItemType.EMPLOYEE_FIADO, chunk,
+                    fiadoRepository::settleInCycle);
+            settled += chunk.size();
+            progress.rowsProcessed(settled);
         }
+        int settledCustomerFiados = 0;
+        for (List<Long> chunk : chunks(customerFiadoIds)) {
+            settledCustomerFiados += settleChunk(cycleId, CycleSettlementItemType.CUSTOMER_FIADO, chunk,
+                    customerFiadoRepository::settleInCycle);
+            settled += chunk.size();
+            progress.rowsProcessed(settled);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> cycleRepository.findById(cycleId)
+                .ifPresent(saved -> saved.setStatus(CycleStatus.CLOSED)));
+        cycle.setStatus(CycleStatus.CLOSED);
+        log.info("Cycle close: settled {} sales, {} employee fiados and {} customer fiados in {} ms",
+                settledSales, settledEmployeeFiados, settledCustomerFiados, elapsedMillis(start));
+        if (settledSales != saleIds.size()) {
+            log.warn("Cycle close: {} of {} sales were already settled by another process",
+                    saleIds.size() - settledSales, saleIds.size());
+        }
+    }
 
-        return zipReport;
+    private int settleChunk(Long cycleId, CycleSettlementItemType itemType, List<Long> ids,
+            Function<List<Long>, Integer> settler) {
+        return transactionTemplate.execute(status -> {
+            int count = settler.apply(ids);
+            cycleSettlementItemRepository.deleteItems(cycleId, itemType, ids);
+            return count;
+        });
+    }
+
+    private List<CycleSettlementItem> settlementItems(Cycle cycle, CycleSettlementItemType itemType,
+            List<Long> ids) {
+        return ids.stream()
+                .map(id -> CycleSettlementItem.builder()
+                        .cycle(cycle)
+                        .itemType(itemType)
+                        .itemId(id)
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Get the per-seller totals of a closed cycle.
+     */
+    public List<CycleSellerSummaryDTO> getSellerSummaries(Long cycleId) {
+        return cycleSellerSummaryRepository.findByCycleId(cycleId).stream()
+                .map(this::toSummaryDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Get a seller's totals in every closed cycle, most recent first.
+     */
+    public List<CycleSellerSummaryDTO> getSellerHistory(UUID sellerId) {
+        return cycleSellerSummaryRepository.findBySellerId(sellerId).stream()
+                .map(this::toSummaryDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Builds one summary per seller with the same figures as the seller's
+     * row in the sales report.
+     */
+    private List<CycleSellerSummary> summarizeBySeller(Cycle cycle, List<SellerSaleTotals> sellerTotals,
+            Map<UUID, BigDecimal> fiadoTotals) {
+        return sellerTotals.stream()
+                .map(totals -> CycleSellerSummary.builder()
+                        .cycle(cycle)
+                        .seller(userRepository.getReferenceById(totals.sellerId()))
+                        .sellerName(totals.sellerName())
+                        .commissionPercentage(totals.commissionPercentage())
+                        .subtotal(totals.subtotal())
+                        .shipping(totals.shipping())
+                        .total(totals.total())
+                        .commission(totals.commission())
+                        .fiadoDeductions(fiadoTotals.getOrDefault(totals.sellerId(), BigDecimal.ZERO))
+                        .salesCount((int) totals.salesCount())
+                        .build())
+                .toList();
+    }
+
+    private CycleSellerSummaryDTO toSummaryDTO(CycleSellerSummary summary) {
+        return CycleSellerSummaryDTO.builder()
+                .cycleId(summary.getCycle().getId())
+                .cycleStartDate(summary.getCycle().getStartDate())
+                .cycleEndDate(summary.getCycle().getEndDate())
+                .sellerId(summary.getSeller().getId())
+                .sellerName(summary.getSellerName())
+                .commissionPercentage(summary.getCommissionPercentage())
+                .subtotal(summary.getSubtotal())
+                .shipping(summary.getShipping())
+                .total(summary.getTotal())
+                .commission(summary.getCommission())
+                .fiadoDeductions(summary.getFiadoDeductions())
+                .salesCount(summary.getSalesCount())
+                .build();
     }
 
     /**
@@ -228,647 +439,263 @@ public class CycleService {
                 .build();
     }
 
+    private TransactionTemplate readOnlyTransaction() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+        return readOnly;
+    }
+
     /**
-     * Generate Excel report with summary sheet and individual seller sheets.
+     * Read-only transaction in which every query sees the same data, so the
+     * sale ids and the totals of the snapshot always agree.
      */
-    private byte[] generateExcelReport(List<Sale> sales) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-
-            // ========== SUMMARY SHEET ==========
-            Sheet summarySheet = workbook.createSheet("Resumen General");
-
-            // Create styles
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle currencyStyle = createCurrencyStyle(workbook);
-            CellStyle commissionStyle = createHighlightStyle(workbook, currencyStyle, IndexedColors.YELLOW);
-            CellStyle toReceiveStyle = createHighlightStyle(workbook, currencyStyle, IndexedColors.LIGHT_BLUE);
-
-            // Create Header Row for Summary
-            Row headerRow = summarySheet.createRow(0);
-            String[] headers = {
-                    "VENDEDOR", "PERIODO", "TOTAL VENTAS SIN ENVÍO", "ENVÍO", "TOTAL VENTAS CON ENVÍO", "PORCENTAJE",
-                    "GANANCIA DEL VENDEDOR"
-            };
-
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
+    private TransactionTemplate snapshotTransaction() {
+        TransactionTemplate snapshot = readOnlyTransaction();
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        return snapshot;
+    }
 
-            // Group sales by Seller
-            Map<User, List<Sale>> salesBySeller = sales.stream()
-                    .collect(Collectors.groupingBy(Sale::getSeller));
-
-            int rowNum = 1;
-            BigDecimal grandTotalSubtotal = BigDecimal.ZERO;
-            BigDecimal grandTotalShipping = BigDecimal.ZERO;
-            BigDecimal grandTotalTotal = BigDecimal.ZERO;
-            BigDecimal grandTotalCommission = BigDecimal.ZERO;
-
-            Locale spanishLocale = Locale.forLanguageTag("es-ES");
-            String currentMonth = LocalDate.now().getMonth().getDisplayName(TextStyle.FULL, spanishLocale)
-                    .toUpperCase();
-
-            // Add seller rows to summary
-            for (Map.Entry<User, List<Sale>> entry : salesBySeller.entrySet()) {
-                User seller = entry.getKey();
-                List<Sale> sellerSales = entry.getValue();
-
-                BigDecimal totalSubtotal = BigDecimal.ZERO;
-                BigDecimal totalShipping = BigDecimal.ZERO;
-                BigDecimal totalTotal = BigDecimal.ZERO;
-                BigDecimal totalCommission = BigDecimal.ZERO;
-
-                for (Sale s : sellerSales) {
-                    BigDecimal sub = s.getSubtotal() != null ? s.getSubtotal() : BigDecimal.ZERO;
-                    BigDecimal ship = s.getShipping() != null ? s.getShipping() : BigDecimal.ZERO;
-                    BigDecimal tot = s.getTotal() != null ? s.getTotal() : BigDecimal.ZERO;
-                    BigDecimal comm = s.getCommissionAmount() != null ? s.getCommissionAmount() : BigDecimal.ZERO;
-
-                    if (s.getSubtotal() == null && s.getTotal() != null) {
-                        sub = tot.subtract(ship);
-                    }
-
-                    totalSubtotal = totalSubtotal.add(sub);
-                    totalShipping = totalShipping.add(ship);
-                    totalTotal = totalTotal.add(tot);
-                    totalCommission = totalCommission.add(comm);
+    /**
+     * Streams the report rows of the given sales, in the order of the ids, from
+     * a read-only transaction on the calling (render) thread.
+     * Ids go to the database in chunks to keep the IN list bounded; rows are
+     * projections, so nothing accumulates in the persistence context.
+     */
+    private SaleRowSource streamRows(List<Long> ids) {
+        return action -> readOnlyTransaction().executeWithoutResult(status -> {
+            for (List<Long> chunk : chunks(ids, STREAM_CHUNK_SIZE)) {
+                try (Stream<SaleReportRow> rows = saleRepository.streamReportRows(chunk)) {
+                    rows.forEach(action);
                 }
-
-                Row row = summarySheet.createRow(rowNum++);
-                row.createCell(0).setCellValue(seller.getFullName());
-                row.createCell(1).setCellValue(currentMonth);
-
-                Cell cellSub = row.createCell(2);
-                cellSub.setCellValue(totalSubtotal.doubleValue());
-                cellSub.setCellStyle(currencyStyle);
-
-                Cell cellShip = row.createCell(3);
-                cellShip.setCellValue(totalShipping.doubleValue());
-                cellShip.setCellStyle(currencyStyle);
-
-                Cell cellTot = row.createCell(4);
-                cellTot.setCellValue(totalTotal.doubleValue());
-                cellTot.setCellStyle(currencyStyle);
-
-                String percentageStr = (seller.getCommissionPercentage() != null ? seller.getCommissionPercentage()
-                        : BigDecimal.ZERO) + "%";
-                row.createCell(5).setCellValue(percentageStr);
-
-                Cell cellComm = row.createCell(6);
-                cellComm.setCellValue(totalCommission.doubleValue());
-                cellComm.setCellStyle(currencyStyle);
-
-                grandTotalSubtotal = grandTotalSubtotal.add(totalSubtotal);
-                grandTotalShipping = grandTotalShipping.add(totalShipping);
-                grandTotalTotal = grandTotalTotal.add(totalTotal);
-                grandTotalCommission = grandTotalCommission.add(totalCommission);
-            }
-
-            // Add TOTAL row to summary
-            addTotalRow(summarySheet, rowNum, currentMonth, grandTotalSubtotal, grandTotalShipping,
-                    grandTotalTotal, grandTotalCommission, headerStyle, currencyStyle);
-
-            // Auto-size columns in summary
-            for (int i = 0; i < headers.length; i++) {
-                summarySheet.autoSizeColumn(i);
             }
+        });
+    }
 
-            // ========== INDIVIDUAL SELLER SHEETS ==========
-            for (Map.Entry<User, List<Sale>> entry : salesBySeller.entrySet()) {
-                User seller = entry.getKey();
-                List<Fiado> sellerFiados = fiadoRepository.findBySellerAndSettledInCycleFalse(seller);
-                BigDecimal totalFiados = sellerFiados.stream()
-                        .map(Fiado::getPrice)
-                        .reduce(BigDecimal.ZERO, BigDecimal::add);
-                createSellerSheet(workbook, seller, entry.getValue(), totalFiados, headerStyle, currencyStyle,
-                        commissionStyle, toReceiveStyle);
-            }
+    private static <T> List<List<T>> chunks(List<T> items) {
+        return chunks(items, SETTLE_CHUNK_SIZE);
+    }
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
+    private static <T> List<List<T>> chunks(List<T> items, int size) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < items.size(); i += size) {
+            chunks.add(items.subList(i, Math.min(items.size(), i + size)));
         }
+        return chunks;
     }
 
     /**
-     * Create individual seller sheet with sale details.
+     * Renders the workbooks concurrently on the report executor and returns
+     * their files in the same order as the tasks.
+     * The first failure cancels the remaining renders, deletes any finished
+     * files and fails the whole close. While waiting, {@code onProgress} runs
+     * every {@link #RENDER_PROGRESS_SECONDS} seconds.
      */
-    private void createSellerSheet(Workbook workbook, User seller, List<Sale> sellerSales,
-            BigDecimal totalFiados, CellStyle headerStyle, CellStyle currencyStyle,
-            CellStyle commissionStyle, CellStyle toReceiveStyle) {
-        // Create sheet with seller's name (sanitize for Excel sheet name)
-        String sheetName = seller.getFullName().replaceAll("[\\\\/:*?\"<>|]", "_");
-        if (sheetName.length() > 31) {
-            sheetName = sheetName.substring(0, 31);
-        }
-        Sheet sellerSheet = workbook.createSheet(sheetName);
-
-        // Headers for individual seller sheet
-        Row sellerHeaderRow = sellerSheet.createRow(0);
-        String[] sellerHeaders = {
-                "FECHA", "CLIENTE", "SUBTOTAL", "VALOR DE ENVÍO", "TOTAL",
-                "REGISTRO DE PAGO", "NÚMERO DE DOCUMENTO (PAGO)", "NÚMERO DE PEDIDO"
-        };
-
-        for (int i = 0; i < sellerHeaders.length; i++) {
-            Cell cell = sellerHeaderRow.createCell(i);
-            cell.setCellValue(sellerHeaders[i]);
-            cell.setCellStyle(headerStyle);
-        }
-
-        // Add sales data
-        int sellerRowNum = 1;
-        BigDecimal sellerSubtotal = BigDecimal.ZERO;
-        BigDecimal sellerShipping = BigDecimal.ZERO;
-        BigDecimal sellerTotal = BigDecimal.ZERO;
-
-        Locale spanishLocale = Locale.forLanguageTag("es-ES");
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MMM", spanishLocale);
-
-        for (Sale sale : sellerSales) {
-            Row saleRow = sellerSheet.createRow(sellerRowNum++);
-
-            // Date
-            String dateStr = sale.getOrderDate() != null
-                    ? sale.getOrderDate().format(dateFormatter)
-                    : "-";
-            saleRow.createCell(0).setCellValue(dateStr);
-
-            // Client
-            saleRow.createCell(1).setCellValue(sale.getCustomerName() != null ? sale.getCustomerName() : "-");
-
-            // Subtotal
-            BigDecimal sub = sale.getSubtotal() != null ? sale.getSubtotal() : BigDecimal.ZERO;
-            Cell subCell = saleRow.createCell(2);
-            subCell.setCellValue(sub.doubleValue());
-            subCell.setCellStyle(currencyStyle);
-            sellerSubtotal = sellerSubtotal.add(sub);
-
-            // Shipping
-            BigDecimal ship = sale.getShipping() != null ? sale.getShipping() : BigDecimal.ZERO;
-            Cell shipCell = saleRow.createCell(3);
-            shipCell.setCellValue(ship.doubleValue());
-            shipCell.setCellStyle(currencyStyle);
-            sellerShipping = sellerShipping.add(ship);
-
-            // Total
-            BigDecimal tot = sale.getTotal() != null ? sale.getTotal() : BigDecimal.ZERO;
-            Cell totCell = saleRow.createCell(4);
-            totCell.setCellValue(tot.doubleValue());
-            totCell.setCellStyle(currencyStyle);
-            sellerTotal = sellerTotal.add(tot);
-
-            // Payment method and document number
-            String paymentMethod = "-";
-            String documentNumber = "-";
-            if (sale.getPayments() != null && !sale.getPayments().isEmpty()) {
-                Payment payment = sale.getPayments().get(sale.getPayments().size() - 1);
-                paymentMethod = payment.getPaymentMethod() != null ? payment.getPaymentMethod().toString() : "-";
-                documentNumber = payment.getReceiptUrl() != null ? payment.getReceiptUrl() : "-";
+    private List<Path> renderInParallel(List<WorkbookTask> tasks, Runnable onProgress) throws IOException {
+        long start = System.nanoTime();
+        CompletionService<Path> completionService = new ExecutorCompletionService<>(reportExecutor.getExecutor());
+        List<Future<Path>> futures = new ArrayList<>();
+        try {
+            for (WorkbookTask task : tasks) {
+                futures.add(completionService.submit(() -> renderTimed(task)));
             }
-            saleRow.createCell(5).setCellValue(paymentMethod);
-            saleRow.createCell(6).setCellValue(documentNumber);
-
-            // Order number
-            saleRow.createCell(7).setCellValue(sale.getOrderNumber() != null ? sale.getOrderNumber() : "-");
+            for (int done = 0; done < tasks.size(); ) {
+                Future<Path> finished = completionService.poll(RENDER_PROGRESS_SECONDS, TimeUnit.SECONDS);
+                if (finished == null) {
+                    onProgress.run();
+                    continue;
+                }
+                finished.get();
+                done++;
+            }
+            List<Path> files = new ArrayList<>();
+            for (Future<Path> future : futures) {
+                files.add(future.get());
+            }
+            log.info("Cycle close: rendered {} workbooks in {} ms", files.size(), elapsedMillis(start));
+            return files;
+        } catch (ExecutionException e) {
+            discard(futures);
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Error al generar los reportes del ciclo", cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            discard(futures);
+            throw new IOException("Generación de reportes interrumpida", e);
+        } catch (RejectedExecutionException e) {
+            discard(futures);
+            throw new IllegalStateException("El generador de reportes está ocupado, intente nuevamente", e);
         }
+    }
 
-        // Add summary rows at the bottom
-        addSellerSummaryRows(sellerSheet, sellerRowNum, seller, sellerSubtotal, sellerShipping,
-                sellerTotal, totalFiados, currencyStyle, commissionStyle, toReceiveStyle);
-
-        // Auto-size columns
-        for (int i = 0; i < sellerHeaders.length; i++) {
-            sellerSheet.autoSizeColumn(i);
+    private Path renderTimed(WorkbookTask task) throws IOException {
+        long start = System.nanoTime();
+        Path file = renderToTempFile(task.name(), task.renderer());
+        if (Thread.currentThread().isInterrupted()) {
+            // The close was aborted while this workbook was being written
+            deleteQuietly(file);
+            throw new IOException("Generación del reporte " + task.name() + " cancelada");
         }
+        log.info("Cycle close: rendered {} workbook in {} ms", task.name(), elapsedMillis(start));
+        return file;
     }
 
     /**
-     * Add summary rows to seller sheet (total, commission, adelantos, a favor, a
-     * recibir).
+     * Cancels pending renders and deletes the files of the ones that finished.
      */
-    private void addSellerSummaryRows(Sheet sheet, int startRow, User seller,
-            BigDecimal subtotal, BigDecimal shipping, BigDecimal total,
-            BigDecimal totalFiados, CellStyle currencyStyle, CellStyle commissionStyle, CellStyle toReceiveStyle) {
-        // Total en ventas row
-        Row totalRow = sheet.createRow(startRow);
-        totalRow.createCell(0).setCellValue("total en ventas");
-
-        Cell subTotalCell = totalRow.createCell(2);
-        subTotalCell.setCellValue(subtotal.doubleValue());
-        subTotalCell.setCellStyle(currencyStyle);
-
-        Cell shipTotalCell = totalRow.createCell(3);
-        shipTotalCell.setCellValue(shipping.doubleValue());
-        shipTotalCell.setCellStyle(currencyStyle);
-
-        Cell totalTotalCell = totalRow.createCell(4);
-        totalTotalCell.setCellValue(total.doubleValue());
-        totalTotalCell.setCellStyle(currencyStyle);
-
-        // Commission row
-        BigDecimal commissionPercentage = seller.getCommissionPercentage() != null ? seller.getCommissionPercentage()
-                : BigDecimal.ZERO;
-        BigDecimal commissionAmount = total.multiply(commissionPercentage)
-                .divide(new BigDecimal("100"), 2, java.math.RoundingMode.HALF_UP);
-
-        Row commissionRow = sheet.createRow(startRow + 1);
-        commissionRow.createCell(0).setCellValue("comision " + commissionPercentage + "%");
-
-        Cell commCell = commissionRow.createCell(2);
-        commCell.setCellValue(commissionAmount.doubleValue());
-        commCell.setCellStyle(commissionStyle);
-
-        // Adelantos row
-        CellStyle adelantosStyle = sheet.getWorkbook().createCellStyle();
-        adelantosStyle.cloneStyleFrom(currencyStyle);
-        adelantosStyle.setFillForegroundColor(IndexedColors.LIGHT_ORANGE.getIndex());
-        adelantosStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-
-        Row adelantosRow = sheet.createRow(startRow + 2);
-        adelantosRow.createCell(0).setCellValue("adelantos");
-
-        Cell adelantosCell = adelantosRow.createCell(2);
-        adelantosCell.setCellValue(totalFiados.doubleValue());
-        adelantosCell.setCellStyle(adelantosStyle);
-
-        // A favor row - only shows when seller has excess commission after fiados
-        Row aFavorRow = sheet.createRow(startRow + 3);
-        aFavorRow.createCell(0).setCellValue("a favor");
-
-        if (commissionAmount.compareTo(totalFiados) > 0) {
-            Cell aFavorCell = aFavorRow.createCell(2);
-            aFavorCell.setCellValue(commissionAmount.subtract(totalFiados).doubleValue());
-            aFavorCell.setCellStyle(currencyStyle);
-        }
-
-        // Debe row - only shows when fiados exceed commission (seller owes)
-        Row debeRow = sheet.createRow(startRow + 4);
-        debeRow.createCell(0).setCellValue("debe");
-
-        if (totalFiados.compareTo(commissionAmount) > 0) {
-            CellStyle debeStyle = sheet.getWorkbook().createCellStyle();
-            debeStyle.cloneStyleFrom(currencyStyle);
-            debeStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            debeStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-            Font whiteFont = sheet.getWorkbook().createFont();
-            whiteFont.setColor(IndexedColors.WHITE.getIndex());
-            debeStyle.setFont(whiteFont);
-
-            Cell debeCell = debeRow.createCell(2);
-            debeCell.setCellValue(totalFiados.subtract(commissionAmount).doubleValue());
-            debeCell.setCellStyle(debeStyle);
+    private void discard(List<Future<Path>> futures) {
+        for (Future<Path> future : futures) {
+            if (!future.cancel(true) && !future.isCancelled()) {
+                try {
+                    deleteQuietly(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ignored) {
+                    // Failed renders clean up their own temp file
+                }
+            }
         }
+    }
 
-        // A recibir row
-        BigDecimal toReceive = commissionAmount.subtract(totalFiados).max(BigDecimal.ZERO);
-
-        Row aRecibirRow = sheet.createRow(startRow + 5);
-        aRecibirRow.createCell(0).setCellValue("a recibir");
-
-        Cell toReceiveCell = aRecibirRow.createCell(2);
-        toReceiveCell.setCellValue(toReceive.doubleValue());
-        toReceiveCell.setCellStyle(toReceiveStyle);
+    private long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
     }
 
     /**
-     * Add total row to summary sheet.
+     * Renders a workbook into a temp file so only the finished (compressed)
+     * file touches the disk and nothing is buffered in heap.
      */
-    private void addTotalRow(Sheet sheet, int rowNum, String month,
-            BigDecimal totalSubtotal, BigDecimal totalShipping, BigDecimal totalTotal,
-            BigDecimal totalCommission, CellStyle headerStyle, CellStyle currencyStyle) {
-        Row totalRow = sheet.createRow(rowNum);
-
-        CellStyle totalStyle = sheet.getWorkbook().createCellStyle();
-        totalStyle.cloneStyleFrom(headerStyle);
-        totalStyle.setAlignment(HorizontalAlignment.RIGHT);
-
-        Cell labelCell = totalRow.createCell(0);
-        labelCell.setCellValue("TOTAL:");
-        labelCell.setCellStyle(totalStyle);
-
-        totalRow.createCell(1).setCellValue(month);
-
-        Cell totSub = totalRow.createCell(2);
-        totSub.setCellValue(totalSubtotal.doubleValue());
-        totSub.setCellStyle(currencyStyle);
-
-        Cell totShip = totalRow.createCell(3);
-        totShip.setCellValue(totalShipping.doubleValue());
-        totShip.setCellStyle(currencyStyle);
-
-        Cell totTot = totalRow.createCell(4);
-        totTot.setCellValue(totalTotal.doubleValue());
-        totTot.setCellStyle(currencyStyle);
-
-        totalRow.createCell(5).setCellValue("");
-
-        Cell totComm = totalRow.createCell(6);
-        totComm.setCellValue(totalCommission.doubleValue());
-        totComm.setCellStyle(currencyStyle);
+    private Path renderToTempFile(String name, WorkbookRenderer renderer) throws IOException {
+        Path file = Files.createTempFile("cierre-" + name + "-", ".xlsx");
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            renderer.render(out);
+        } catch (IOException | RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+        return file;
     }
 
-    /**
-     * Create header cell style.
-     */
-    private CellStyle createHeaderStyle(Workbook workbook) {
-        CellStyle headerStyle = workbook.createCellStyle();
-        Font headerFont = workbook.createFont();
-        headerFont.setBold(true);
-        headerStyle.setFont(headerFont);
-        headerStyle.setAlignment(HorizontalAlignment.CENTER);
-        headerStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        headerStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        headerStyle.setBorderBottom(BorderStyle.THIN);
-        headerStyle.setBorderTop(BorderStyle.THIN);
-        headerStyle.setBorderRight(BorderStyle.THIN);
-        headerStyle.setBorderLeft(BorderStyle.THIN);
-        return headerStyle;
+    private void deleteQuietly(Path file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete temp report file {}", file, e);
+        }
     }
 
     /**
-     * Create currency cell style.
+     * Package multiple Excel files into a ZIP archive.
+     * XLSX files are already deflated, so the entries are STORED to avoid
+     * compressing them a second time.
      */
-    private CellStyle createCurrencyStyle(Workbook workbook) {
-        CellStyle currencyStyle = workbook.createCellStyle();
-        DataFormat format = workbook.createDataFormat();
-        currencyStyle.setDataFormat(format.getFormat("$#,##0.00"));
-        return currencyStyle;
+    private void writeZip(OutputStream target, Path ventasExcel, Path fiadosExcel, Path tvExcel, String dateStr)
+            throws IOException {
+        ZipOutputStream zos = new ZipOutputStream(new BufferedOutputStream(target, ZIP_BUFFER_SIZE));
+        addZipEntry(zos, "Ventas_Ciclo_" + dateStr + ".xlsx", ventasExcel);
+        addZipEntry(zos, "Fiados_Ciclo_" + dateStr + ".xlsx", fiadosExcel);
+        addZipEntry(zos, "Televisores_Ciclo_" + dateStr + ".xlsx", tvExcel);
+        // finish() instead of close(): the download stream belongs to the caller
+        zos.finish();
+        zos.flush();
     }
 
-    /**
-     * Create highlighted cell style (for commission and to receive).
-     */
-    private CellStyle createHighlightStyle(Workbook workbook, CellStyle baseStyle, IndexedColors color) {
-        CellStyle highlightStyle = workbook.createCellStyle();
-        highlightStyle.cloneStyleFrom(baseStyle);
-        highlightStyle.setFillForegroundColor(color.getIndex());
-        highlightStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        return highlightStyle;
+    private void addZipEntry(ZipOutputStream zos, String name, Path data) throws IOException {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(Files.size(data));
+        entry.setCompressedSize(Files.size(data));
+        entry.setCrc(crc32(data));
+        zos.putNextEntry(entry);
+        Files.copy(data, zos);
+        zos.closeEntry();
     }
 
     /**
-     * Generate Fiados Excel with 2 sheets: CLIENTES and EMPLEADOS.
+     * STORED entries need their CRC up front; it is computed from the temp file
+     * so the workbook never has to be held in memory.
      */
-    private byte[] generateFiadosExcel(List<Fiado> employeeFiados, List<CustomerFiado> customerFiados)
-            throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            CellStyle headerStyle = createHeaderStyle(workbook);
-            CellStyle currencyStyle = createCurrencyStyle(workbook);
-
-            Locale spanishLocale = Locale.forLanguageTag("es-ES");
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MMM", spanishLocale);
-
-            // ========== CLIENTES SHEET ==========
-            Sheet clientesSheet = workbook.createSheet("CLIENTES");
-            String[] clienteHeaders = {
-                    "FECHA DE VENTA", "CLIENTE", "CÉDULA CLIENTE", "TELÉFONO", "N° DE FACTURA",
-                    "MONTO TOTAL", "ABONOS PARCIALES", "SALDO TOTAL", "FECHA DE ABONOS",
-                    "FORMA DE PAGO", "ESTADO", "PLAZO APROBADO", "ORIGEN / VENDEDOR", "OBSERVACIONES"
-            };
-
-            Row clienteHeaderRow = clientesSheet.createRow(0);
-            for (int i = 0; i < clienteHeaders.length; i++) {
-                Cell cell = clienteHeaderRow.createCell(i);
-                cell.setCellValue(clienteHeaders[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            int rowNum = 1;
-            for (CustomerFiado cf : customerFiados) {
-                Row row = clientesSheet.createRow(rowNum++);
-
-                // Fecha de venta
-                String dateStr = cf.getCreatedAt() != null ? cf.getCreatedAt().format(dateFormatter) : "-";
-                row.createCell(0).setCellValue(dateStr);
-
-                // Cliente
-                row.createCell(1).setCellValue(
-                        cf.getCustomer() != null ? cf.getCustomer().getFullName() : "-");
-
-                // Cédula cliente
-                row.createCell(2).setCellValue(
-                        cf.getCustomer() != null && cf.getCustomer().getIdNumber() != null
-                                ? cf.getCustomer().getIdNumber()
-                                : "");
-
-                // Teléfono
-                row.createCell(3).setCellValue(
-                        cf.getCustomer() != null && cf.getCustomer().getPhoneNumber() != null
-                                ? cf.getCustomer().getPhoneNumber()
-                                : "");
-
-                // N° de factura
-                row.createCell(4).setCellValue(cf.getItemName() != null ? cf.getItemName() : "");
-
-                // Monto total
-                Cell montoCell = row.createCell(5);
-                montoCell.setCellValue(cf.getPrice() != null ? cf.getPrice().doubleValue() : 0);
-                montoCell.setCellStyle(currencyStyle);
-
-                // Abonos parciales (vacío)
-                row.createCell(6).setCellValue("");
-
-                // Saldo total (= monto total sin abonos)
-                Cell saldoCell = row.createCell(7);
-                saldoCell.setCellValue(cf.getPrice() != null ? cf.getPrice().doubleValue() : 0);
-                saldoCell.setCellStyle(currencyStyle);
-
-                // Fecha de abonos (vacío)
-                row.createCell(8).setCellValue("");
-
-                // Forma de pago (vacío)
-                row.createCell(9).setCellValue("");
-
-                // Estado
-                row.createCell(10).setCellValue(
-                        cf.getStatus() != null ? cf.getStatus().name() : "PENDIENTE");
-
-                // Plazo aprobado (vacío)
-                row.createCell(11).setCellValue("");
-
-                // Origen / Vendedor
-                row.createCell(12).setCellValue(
-                        cf.getSeller() != null ? cf.getSeller().getFullName() : "-");
-
-                // Observaciones (vacío)
-                row.createCell(13).setCellValue("");
-            }
-
-            for (int i = 0; i < clienteHeaders.length; i++) {
-                clientesSheet.autoSizeColumn(i);
+    private long crc32(Path data) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[ZIP_BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(data)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
             }
+        }
+        return crc.getValue();
+    }
 
-            // ========== EMPLEADOS SHEET ==========
-            Sheet empleadosSheet = workbook.createSheet("EMPLEADOS");
-            String[] empleadoHeaders = {
-                    "FECHA DE VENTA", "NOMBRE", "CÉDULA", "TELÉFONO", "N° DE FACTURA",
-                    "MONTO TOTAL", "ABONOS PARCIALES", "SALDO TOTAL", "FECHA DE ABONOS",
-                    "FORMA DE PAGO", "ESTADO", "PLAZO APROBADO", "ORIGEN / VENDEDOR", "OBSERVACIONES"
-            };
-
-            Row empleadoHeaderRow = empleadosSheet.createRow(0);
-            for (int i = 0; i < empleadoHeaders.length; i++) {
-                Cell cell = empleadoHeaderRow.createCell(i);
-                cell.setCellValue(empleadoHeaders[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            rowNum = 1;
-            for (Fiado fiado : employeeFiados) {
-                Row row = empleadosSheet.createRow(rowNum++);
-
-                // Fecha de venta
-                String dateStr = fiado.getCreatedAt() != null ? fiado.getCreatedAt().format(dateFormatter) : "-";
-                row.createCell(0).setCellValue(dateStr);
-
-                // Nombre (seller)
-                row.createCell(1).setCellValue(
-                        fiado.getSeller() != null ? fiado.getSeller().getFullName() : "-");
-
-                // Cédula (vacío - User no tiene cédula)
-                row.createCell(2).setCellValue("");
-
-                // Teléfono
-                row.createCell(3).setCellValue(
-                        fiado.getSeller() != null && fiado.getSeller().getPhoneNumber() != null
-                                ? fiado.getSeller().getPhoneNumber()
-                                : "");
-
-                // N° de factura
-                row.createCell(4).setCellValue(fiado.getItemName() != null ? fiado.getItemName() : "");
-
-                // Monto total
-                Cell montoCell = row.createCell(5);
-                montoCell.setCellValue(fiado.getPrice() != null ? fiado.getPrice().doubleValue() : 0);
-                montoCell.setCellStyle(currencyStyle);
-
-                // Abonos parciales (vacío)
-                row.createCell(6).setCellValue("");
-
-                // Saldo total
-                Cell saldoCell = row.createCell(7);
-                saldoCell.setCellValue(fiado.getPrice() != null ? fiado.getPrice().doubleValue() : 0);
-                saldoCell.setCellStyle(currencyStyle);
-
-                // Fecha de abonos (vacío)
-                row.createCell(8).setCellValue("");
-
-                // Forma de pago (vacío)
-                row.createCell(9).setCellValue("");
-
-                // Estado
-                row.createCell(10).setCellValue(
-                        fiado.getStatus() != null ? fiado.getStatus().name() : "PENDIENTE");
-
-                // Plazo aprobado (vacío)
-                row.createCell(11).setCellValue("");
-
-                // Origen / Vendedor
-                row.createCell(12).setCellValue(
-                        fiado.getSeller() != null ? fiado.getSeller().getFullName() : "-");
-
-                // Observaciones (vacío)
-                row.createCell(13).setCellValue("");
-            }
+    @FunctionalInterface
+    private interface WorkbookRenderer {
+        void render(OutputStream out) throws IOException;
+    }
 
-            for (int i = 0; i < empleadoHeaders.length; i++) {
-                empleadosSheet.autoSizeColumn(i);
-            }
+    private record WorkbookTask(String name, WorkbookRenderer renderer) {
+    }
 
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
-        }
+    private record CycleSnapshot(List<SaleRef> sales, SaleTotals totals, List<SellerSaleTotals> sellerTotals,
+            List<Fiado> employeeFiados, List<CustomerFiado> customerFiados) {
     }
 
     /**
-     * Generate TV Sales Excel report.
+     * Writes the ZIP to storage and to the client download. A failed download
+     * (e.g. the client disconnected) is logged once and ignored, so the close
+     * does not depend on the browser staying connected.
      */
-    private byte[] generateTvSalesExcel(List<Sale> tvSales) throws IOException {
-        try (Workbook workbook = new XSSFWorkbook()) {
-            CellStyle headerStyle = createHeaderStyle(workbook);
-
-            Locale spanishLocale = Locale.forLanguageTag("es-ES");
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd-MMM", spanishLocale);
-
-            Sheet sheet = workbook.createSheet("TELEVISORES");
-            String[] headers = {
-                    "VENDEDOR / ORIGEN", "FECHA DE COMPRA", "CLIENTE", "CEDULA CLIENTE",
-                    "TELEFONO", "MARCA", "SERIE", "OBSERVACIONES"
-            };
-
-            Row headerRow = sheet.createRow(0);
-            for (int i = 0; i < headers.length; i++) {
-                Cell cell = headerRow.createCell(i);
-                cell.setCellValue(headers[i]);
-                cell.setCellStyle(headerStyle);
-            }
-
-            int rowNum = 1;
-            for (Sale sale : tvSales) {
-                Row row = sheet.createRow(rowNum++);
-
-                // Vendedor / Origen
-                row.createCell(0).setCellValue(
-                        sale.getSeller() != null ? sale.getSeller().getFullName() : "-");
-
-                // Fecha de compra
-                String dateStr = sale.getOrderDate() != null ? sale.getOrderDate().format(dateFormatter) : "-";
-                row.createCell(1).setCellValue(dateStr);
-
-                // Cliente
-                row.createCell(2).setCellValue(sale.getCustomerName() != null ? sale.getCustomerName() : "-");
-
-                // Cédula cliente
-                row.createCell(3).setCellValue(
-                        sale.getCustomerIdNumber() != null ? sale.getCustomerIdNumber() : "");
+    private static final class ReportTee extends OutputStream {
 
-                // Teléfono
-                row.createCell(4).setCellValue(
-                        sale.getCustomerPhone() != null ? sale.getCustomerPhone() : "");
+        private final OutputStream upload;
+        private final OutputStream download;
+        private boolean downloadLost;
+        private long written;
 
-                // Marca (tvModel)
-                row.createCell(5).setCellValue(sale.getTvModel() != null ? sale.getTvModel() : "");
+        private ReportTee(OutputStream upload, OutputStream download) {
+            this.upload = upload;
+            this.download = download;
+        }
 
-                // Serie (tvSerialNumber)
-                row.createCell(6).setCellValue(
-                        sale.getTvSerialNumber() != null ? sale.getTvSerialNumber() : "");
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
 
-                // Observaciones (vacío)
-                row.createCell(7).setCellValue("");
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            upload.write(b, off, len);
+            written += len;
+            if (!downloadLost) {
+                try {
+                    download.write(b, off, len);
+                } catch (IOException e) {
+                    lose(e);
+                }
             }
+        }
 
-            for (int i = 0; i < headers.length; i++) {
-                sheet.autoSizeColumn(i);
+        @Override
+        public void flush() {
+            if (!downloadLost) {
+                try {
+                    download.flush();
+                } catch (IOException e) {
+                    lose(e);
+                }
             }
-
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            workbook.write(out);
-            return out.toByteArray();
         }
-    }
 
-    /**
-     * Package multiple Excel files into a ZIP archive.
-     */
-    private byte[] packageAsZip(byte[] ventasExcel, byte[] fiadosExcel, byte[] tvExcel, String dateStr)
-            throws IOException {
-        ByteArrayOutputStream zipOut = new ByteArrayOutputStream();
-        try (ZipOutputStream zos = new ZipOutputStream(zipOut)) {
-            addZipEntry(zos, "Ventas_Ciclo_" + dateStr + ".xlsx", ventasExcel);
-            addZipEntry(zos, "Fiados_Ciclo_" + dateStr + ".xlsx", fiadosExcel);
-            addZipEntry(zos, "Televisores_Ciclo_" + dateStr + ".xlsx", tvExcel);
+        private void lose(IOException e) {
+            downloadLost = true;
+            log.warn("Cycle close: download interrupted, continuing with the upload only: {}", e.getMessage());
         }
-        return zipOut.toByteArray();
-    }
-
-    private void addZipEntry(ZipOutputStream zos, String name, byte[] data) throws IOException {
-        ZipEntry entry = new ZipEntry(name);
-        zos.putNextEntry(entry);
-        zos.write(data);
-        zos.closeEntry();
     }
 }
@@ -0,0 +1,40 @@
+package com.elmayorista.report;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity recording a sale or fiado that a cycle still has to settle.
+ * Items are written together with the cycle and removed as each chunk is
+ * settled, so an interrupted close can be finished by the next one.
+ */
+@Entity
+@Table(name = "cycle_settlement_items",
+        indexes = @Index(name = "idx_cycle_settlement_items_cycle_type_item",
+                columnList = "cycle_id, item_type, item_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CycleSettlementItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cycle_settlement_items_seq")
+    @SequenceGenerator(name = "cycle_settlement_items_seq", sequenceName = "cycle_settlement_items_seq",
+            allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cycle_id", nullable = false)
+    private Cycle cycle;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "item_type", nullable = false)
+    private CycleSettlementItemType itemType;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+}
@@ -0,0 +1,32 @@
+package com.elmayorista.report;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for CycleSettlementItem entity.
+ */
+@Repository
+public interface CycleSettlementItemRepository extends JpaRepository<CycleSettlementItem, Long> {
+
+    /**
+     * Ids of the rows of one kind that the cycle has not settled yet.
+     */
+    @Query("SELECT i.itemId FROM CycleSettlementItem i " +
+            "WHERE i.cycle.id = :cycleId AND i.itemType = :itemType ORDER BY i.itemId")
+    List<Long> findItemIds(Long cycleId, CycleSettlementItemType itemType);
+
+    /**
+     * Remove the given items once they are settled. Runs in the caller's
+     * transaction, together with the settling UPDATE.
+     */
+    @Modifying
+    @Query("DELETE FROM CycleSettlementItem i " +
+            "WHERE i.cycle.id = :cycleId AND i.itemType = :itemType AND i.itemId IN :itemIds")
+    int deleteItems(Long cycleId, CycleSettlementItemType itemType, Collection<Long> itemIds);
+}
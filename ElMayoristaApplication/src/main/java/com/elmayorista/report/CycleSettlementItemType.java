@@ -0,0 +1,10 @@
+package com.elmayorista.report;
+
+/**
+ * Kind of row settled when a cycle is closed.
+ */
+public enum CycleSettlementItemType {
+    SALE,
+    EMPLOYEE_FIADO,
+    CUSTOMER_FIADO
+}
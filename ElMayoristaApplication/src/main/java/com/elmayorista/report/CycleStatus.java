@@ -5,5 +5,9 @@ package com.elmayorista.report;
  */
 public enum CycleStatus {
     OPEN,
+    /**
+     * Recorded, with some of its sales or fiados still to be settled.
+     */
+    SETTLING,
     CLOSED
 }
@@ -11,13 +11,16 @@ import com.elmayorista.user.UserDetailsImpl;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /**
  * Controller for report-related operations.
@@ -31,6 +34,7 @@ public class ReportController {
 
     private final PdfExtractionService pdfExtractionService;
     private final CycleService cycleService;
+    private final CloseCycleJobService closeCycleJobService;
     private final SaleService saleService;
     private final FileStorageService fileStorageService;
     private final Mapper mapper;
@@ -118,28 +122,78 @@ public class ReportController {
         }
     }
 
+    /**
+     * Get the per-seller totals of a closed cycle.
+     */
+    @GetMapping("/cycles/{id}/sellers")
+    public ResponseEntity<List<CycleSellerSummaryDTO>> getCycleSellers(@PathVariable Long id) {
+        return ResponseEntity.ok(cycleService.getSellerSummaries(id));
+    }
+
+    /**
+     * Get a seller's totals in every closed cycle (most recent first).
+     * Admins can read any seller; a seller only their own history.
+     */
+    @GetMapping("/sellers/{sellerId}/cycles")
+    public ResponseEntity<List<CycleSellerSummaryDTO>> getSellerCycles(@PathVariable UUID sellerId,
+            Authentication authentication) {
+        UserDetailsImpl userDetails = (UserDetailsImpl) authentication.getPrincipal();
+        boolean admin = userDetails.getAuthorities().stream()
+                .anyMatch(authority -> "ADMIN".equals(authority.getAuthority()));
+        if (!admin && !userDetails.getUser().getId().equals(sellerId)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(cycleService.getSellerHistory(sellerId));
+    }
+
     /**
      * Close the current cycle and download the ZIP report (Ventas + Fiados + Televisores).
+     * The ZIP is streamed as it is generated, so nothing is buffered in memory.
+     * For large cycles prefer {@link #startCloseCycleJob()}.
      */
     @PostMapping("/close-cycle")
-    public ResponseEntity<byte[]> closeCycle() {
+    public ResponseEntity<?> closeCycle() {
+        // Reserved before streaming starts: once the body is being written the
+        // status can no longer become a 400
+        UUID jobId;
         try {
-            byte[] report = cycleService.closeCycle();
+            jobId = closeCycleJobService.reserve();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage().getBytes());
+        }
 
-            String filename = "Cierre_Ciclo_" + java.time.LocalDate.now() + ".zip";
+        String filename = "Cierre_Ciclo_" + java.time.LocalDate.now() + ".zip";
 
-            return ResponseEntity.ok()
-                    .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
-                            "attachment; filename=" + filename)
-                    .contentType(org.springframework.http.MediaType
-                            .parseMediaType("application/zip"))
-                    .body(report);
+        StreamingResponseBody body = out -> closeCycleJobService.run(jobId, out);
 
+        return ResponseEntity.ok()
+                .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=" + filename)
+                .contentType(org.springframework.http.MediaType
+                        .parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    /**
+     * Start closing the current cycle in the background.
+     * Returns the job right away; poll {@link #getCloseCycleJob(UUID)} for its
+     * progress and, once completed, the cycle and its report URL.
+     */
+    @PostMapping("/close-cycle/jobs")
+    public ResponseEntity<?> startCloseCycleJob() {
+        try {
+            CloseCycleJobDTO job = closeCycleJobService.submit();
+            return ResponseEntity.accepted().body(job);
         } catch (IllegalStateException e) {
-            return ResponseEntity.badRequest().body(e.getMessage().getBytes());
-        } catch (Exception e) {
-            log.error("Error closing cycle", e);
-            return ResponseEntity.internalServerError().build();
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
         }
     }
+
+    /**
+     * Get the status of a close-cycle job.
+     */
+    @GetMapping("/close-cycle/jobs/{id}")
+    public ResponseEntity<CloseCycleJobDTO> getCloseCycleJob(@PathVariable UUID id) {
+        return ResponseEntity.ok(closeCycleJobService.getJob(id));
+    }
 }
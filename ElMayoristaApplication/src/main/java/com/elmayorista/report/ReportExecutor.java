@@ -0,0 +1,64 @@
+package com.elmayorista.report;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded thread pools used for report work: one to render workbooks in
+ * parallel and a single-threaded one that runs close-cycle jobs.
+ * They are deliberately not exposed as {@link Executor} beans so they do not
+ * replace the default executor used by {@code @Async} methods.
+ * Jobs get their own pool so a running close never competes with its own
+ * workbook renders for threads.
+ */
+@Component
+public class ReportExecutor implements DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final ThreadPoolTaskExecutor jobExecutor;
+
+    public ReportExecutor(@Value("${app.reports.executor.pool-size:3}") int poolSize,
+            @Value("${app.reports.executor.queue-capacity:6}") int queueCapacity) {
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+
+        this.jobExecutor = new ThreadPoolTaskExecutor();
+        jobExecutor.setCorePoolSize(1);
+        jobExecutor.setMaxPoolSize(1);
+        jobExecutor.setQueueCapacity(0);
+        jobExecutor.setThreadNamePrefix("cycle-close-");
+        jobExecutor.setWaitForTasksToCompleteOnShutdown(false);
+        jobExecutor.initialize();
+    }
+
+    /**
+     * The underlying executor. Submissions beyond the pool size plus queue
+     * capacity are rejected instead of piling up.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Executor for background close-cycle jobs. Only one job runs at a time
+     * and nothing is queued behind it.
+     */
+    public Executor getJobExecutor() {
+        return jobExecutor;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+        jobExecutor.shutdown();
+    }
+}
@@ -0,0 +1,112 @@
+package com.elmayorista.report;
+
+import org.apache.poi.ss.usermodel.*;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Registry of the cell styles used by the Excel reports, created once per
+ * workbook and reused for every sheet and row.
+ * XLSX caps the number of styles per file, so styles must never be created
+ * per seller or per row.
+ */
+public class ReportStyles {
+
+    private final Workbook workbook;
+    private final Map<IndexedColors, CellStyle> highlights = new EnumMap<>(IndexedColors.class);
+    private CellStyle header;
+    private CellStyle bold;
+    private CellStyle total;
+    private CellStyle currency;
+    private CellStyle owed;
+
+    public ReportStyles(Workbook workbook) {
+        this.workbook = workbook;
+    }
+
+    /**
+     * Bold, centered, grey header with thin borders.
+     */
+    public CellStyle header() {
+        if (header == null) {
+            header = workbook.createCellStyle();
+            header.setFont(boldFont());
+            header.setAlignment(HorizontalAlignment.CENTER);
+            header.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
+            header.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            header.setBorderBottom(BorderStyle.THIN);
+            header.setBorderTop(BorderStyle.THIN);
+            header.setBorderRight(BorderStyle.THIN);
+            header.setBorderLeft(BorderStyle.THIN);
+        }
+        return header;
+    }
+
+    /**
+     * Plain bold text.
+     */
+    public CellStyle bold() {
+        if (bold == null) {
+            bold = workbook.createCellStyle();
+            bold.setFont(boldFont());
+        }
+        return bold;
+    }
+
+    /**
+     * Header look aligned to the right, for the TOTAL label.
+     */
+    public CellStyle total() {
+        if (total == null) {
+            total = workbook.createCellStyle();
+            total.cloneStyleFrom(header());
+            total.setAlignment(HorizontalAlignment.RIGHT);
+        }
+        return total;
+    }
+
+    /**
+     * Currency amounts ($#,##0.00).
+     */
+    public CellStyle currency() {
+        if (currency == null) {
+            currency = workbook.createCellStyle();
+            currency.setDataFormat(workbook.createDataFormat().getFormat("$#,##0.00"));
+        }
+        return currency;
+    }
+
+    /**
+     * Currency amount with a solid background color.
+     */
+    public CellStyle highlight(IndexedColors color) {
+        return highlights.computeIfAbsent(color, c -> {
+            CellStyle style = workbook.createCellStyle();
+            style.cloneStyleFrom(currency());
+            style.setFillForegroundColor(c.getIndex());
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            return style;
+        });
+    }
+
+    /**
+     * Currency amount in white on red, for amounts a seller owes.
+     */
+    public CellStyle owed() {
+        if (owed == null) {
+            owed = workbook.createCellStyle();
+            owed.cloneStyleFrom(highlight(IndexedColors.RED));
+            Font whiteFont = workbook.createFont();
+            whiteFont.setColor(IndexedColors.WHITE.getIndex());
+            owed.setFont(whiteFont);
+        }
+        return owed;
+    }
+
+    private Font boldFont() {
+        Font font = workbook.createFont();
+        font.setBold(true);
+        return font;
+    }
+}
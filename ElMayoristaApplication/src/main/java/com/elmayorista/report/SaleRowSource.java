@@ -0,0 +1,18 @@
+package com.elmayorista.report;
+
+import com.elmayorista.sale.SaleReportRow;
+
+import java.util.function.Consumer;
+
+/**
+ * Supplies report rows one at a time, so writers never need the whole list
+ * of sales in memory.
+ */
+@FunctionalInterface
+public interface SaleRowSource {
+
+    /**
+     * Pass every row, in report order, to {@code action}.
+     */
+    void forEach(Consumer<SaleReportRow> action);
+}
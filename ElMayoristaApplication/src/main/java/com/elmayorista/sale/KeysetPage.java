@@ -0,0 +1,25 @@
+package com.elmayorista.sale;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) listing.
+ *
+ * @param content       Items of this page.
+ * @param nextCursor    Opaque token to request the next page, null on the last one.
+ * @param hasNext       Whether there are more items after this page.
+ * @param totalElements Total number of items, only computed when requested.
+ */
+public record KeysetPage<T>(
+        List<T> content,
+        String nextCursor,
+        boolean hasNext,
+        Long totalElements
+) {
+
+    public <R> KeysetPage<R> map(Function<? super T, ? extends R> mapper) {
+        List<R> mapped = content.stream().<R>map(mapper).toList();
+        return new KeysetPage<>(mapped, nextCursor, hasNext, totalElements);
+    }
+}
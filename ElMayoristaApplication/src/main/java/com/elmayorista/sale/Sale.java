@@ -12,6 +12,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -21,7 +22,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales", indexes = {
+        @Index(name = "idx_sales_order_date_id", columnList = "order_date, id"),
+        @Index(name = "idx_sales_status_order_date_id", columnList = "status, order_date, id"),
+        @Index(name = "idx_sales_seller_order_date_id", columnList = "seller_id, order_date, id"),
+        @Index(name = "idx_sales_status_settled_order_date", columnList = "status, commission_settled, order_date"),
+        @Index(name = "idx_sales_payment_status_order_date", columnList = "payment_status, order_date"),
+        @Index(name = "idx_sales_sale_type_order_date", columnList = "sale_type, order_date"),
+        @Index(name = "idx_sales_status_reminder_due", columnList = "status, reminder_due_at"),
+        @Index(name = "idx_sales_status_seller_email_due", columnList = "status, seller_email_due_at"),
+        @Index(name = "idx_sales_status_admin_alert_due", columnList = "status, admin_alert_due_at")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -29,7 +40,8 @@ import java.util.List;
 public class Sale {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sales_seq")
+    @SequenceGenerator(name = "sales_seq", sequenceName = "sales_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.EAGER)
@@ -115,7 +127,16 @@ public class Sale {
     @Builder.Default
     private PaymentStatus paymentStatus = PaymentStatus.UNPAID;
 
-    @Column(nullable = false)
+    /**
+     * Sum of the registered payments, kept up to date by PaymentService and
+     * checked against the payments table by the nightly reconciliation.
+     */
+    @Column(name = "paid_amount", nullable = false, precision = 12, scale = 2)
+    @ColumnDefault("0")
+    @Builder.Default
+    private BigDecimal paidAmount = BigDecimal.ZERO;
+
+    @Column(name = "order_date", nullable = false)
     @NotNull(message = "La fecha de pedido es obligatoria")
     private LocalDateTime orderDate;
 
@@ -126,6 +147,24 @@ public class Sale {
 
     private String rejectionReason;
 
+    /*
+     * When the next pending-sale reminder, seller email and admin alert are
+     * due. Only meaningful while the sale is PENDING; see ReminderSchedule.
+     * Written on insert and afterwards only by bulk updates in SaleRepository,
+     * so saving a sale loaded before the reminder job never restores old
+     * due times.
+     */
+
+    @Column(name = "reminder_due_at", updatable = false)
+    private LocalDateTime reminderDueAt;
+
+    @Column(name = "seller_email_due_at", updatable = false)
+    private LocalDateTime sellerEmailDueAt;
+
+    @Column(name = "admin_alert_due_at", updatable = false)
+    private LocalDateTime adminAlertDueAt;
+
+    @Column(name = "commission_settled")
     @Builder.Default
     private boolean commissionSettled = false;
 
@@ -136,4 +175,9 @@ public class Sale {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    @Version
+    @Column(nullable = false)
+    @ColumnDefault("0")
+    private Long version;
 }
\ No newline at end of file
@@ -18,7 +18,8 @@ import java.math.BigDecimal;
 public class SaleDetail {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sale_details_seq")
+    @SequenceGenerator(name = "sale_details_seq", sequenceName = "sale_details_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
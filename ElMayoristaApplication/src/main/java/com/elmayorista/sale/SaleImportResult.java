@@ -0,0 +1,15 @@
+package com.elmayorista.sale;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk sale import.
+ *
+ * @param errors Reasons rows were skipped, prefixed with their line number.
+ *               Truncated to the first few hundred.
+ */
+public record SaleImportResult(
+        int imported,
+        int skipped,
+        List<String> errors
+) {}
@@ -0,0 +1,38 @@
+package com.elmayorista.sale;
+
+import com.elmayorista.payment.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One historical sale in a bulk import file. CSV headers and JSON keys use
+ * these field names.
+ *
+ * @param subtotal   Defaults to total minus shipping.
+ * @param paidAmount Registered as a single payment when greater than zero.
+ * @param status     Defaults to what the payment flow would leave the sale in.
+ * @param commissionSettled Defaults to true for APPROVED sales, whose commission
+ *                          was paid before the import.
+ */
+public record SaleImportRow(
+        String orderNumber,
+        String sellerEmail,
+        String customerName,
+        String customerIdNumber,
+        String customerAddress,
+        String customerCity,
+        String customerPhone,
+        String customerEmail,
+        BigDecimal subtotal,
+        BigDecimal shipping,
+        BigDecimal total,
+        LocalDateTime orderDate,
+        SaleType saleType,
+        String tvModel,
+        String tvSerialNumber,
+        BigDecimal paidAmount,
+        PaymentMethod paymentMethod,
+        SaleStatus status,
+        Boolean commissionSettled
+) {}
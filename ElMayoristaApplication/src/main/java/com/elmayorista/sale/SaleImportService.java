@@ -0,0 +1,352 @@
+package com.elmayorista.sale;
+
+import com.elmayorista.notification.ReminderSchedule;
+import com.elmayorista.payment.Payment;
+import com.elmayorista.payment.PaymentMethod;
+import com.elmayorista.payment.PaymentStatus;
+import com.elmayorista.user.User;
+import com.elmayorista.user.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bulk import of historical sales from CSV (with a header row) or JSON lines.
+ * Rows are validated in memory and persisted in chunks, each in its own
+ * transaction, so Hibernate can send them as JDBC batches.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SaleImportService {
+
+    /**
+     * Rows persisted per transaction. A multiple of hibernate.jdbc.batch_size.
+     */
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final int MAX_REPORTED_ERRORS = 200;
+
+    private static final String SAVE_FAILED = "no se pudo guardar la venta";
+
+    private static final BigDecimal DEFAULT_COMMISSION_PERCENTAGE = new BigDecimal("5.00");
+
+    private final SaleRepository saleRepository;
+    private final UserRepository userRepository;
+    private final SaleService saleService;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Importa las ventas del archivo. Las filas inválidas o con número de pedido
+     * repetido se omiten y se informan en el resultado.
+     *
+     * @param file       Archivo .csv o .jsonl.
+     * @param importedBy Usuario que registra los pagos importados.
+     */
+    public SaleImportResult importSales(MultipartFile file, User importedBy) {
+        String filename = file.getOriginalFilename() == null ? ""
+                : file.getOriginalFilename().toLowerCase(Locale.ROOT);
+        boolean csv;
+        if (filename.endsWith(".csv")) {
+            csv = true;
+        } else if (filename.endsWith(".jsonl") || filename.endsWith(".ndjson")) {
+            csv = false;
+        } else {
+            throw new IllegalArgumentException("Formato no soportado. Use un archivo .csv o .jsonl");
+        }
+
+        ImportRun run = new ImportRun(importedBy);
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
+            String[] header = null;
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+                    line = line.substring(1);
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (csv && header == null) {
+                    header = parseCsvLine(line);
+                    continue;
+                }
+                try {
+                    SaleImportRow row = csv ? fromCsv(header, parseCsvLine(line))
+                            : objectMapper.readValue(line, SaleImportRow.class);
+                    run.add(lineNumber, row);
+                } catch (JsonProcessingException e) {
+                    run.skip(lineNumber, "formato inválido: " + e.getOriginalMessage());
+                } catch (IllegalArgumentException e) {
+                    run.skip(lineNumber, "formato inválido: " + e.getMessage());
+                }
+                if (run.pending.size() == CHUNK_SIZE) {
+                    persistPending(run);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el archivo de importación.", e);
+        }
+        persistPending(run);
+
+        log.info("Sale import of {} finished: {} imported, {} skipped", filename, run.imported, run.skipped);
+        return new SaleImportResult(run.imported, run.skipped, run.errors);
+    }
+
+    private void persistPending(ImportRun run) {
+        if (run.pending.isEmpty()) {
+            return;
+        }
+        List<PendingRow> chunk = List.copyOf(run.pending);
+        run.pending.clear();
+
+        List<String> orderNumbers = chunk.stream()
+                .map(p -> p.row().orderNumber())
+                .filter(orderNumber -> orderNumber != null)
+                .toList();
+        Set<String> existing = orderNumbers.isEmpty() ? Set.of()
+                : new HashSet<>(saleRepository.findExistingOrderNumbers(orderNumbers));
+
+        List<PendingRow> valid = new ArrayList<>(chunk.size());
+        List<Sale> sales = new ArrayList<>(chunk.size());
+        for (PendingRow pending : chunk) {
+            if (existing.contains(pending.row().orderNumber())) {
+                run.skip(pending.lineNumber(),
+                        "ya existe una venta con el número de pedido " + pending.row().orderNumber());
+                continue;
+            }
+            try {
+                sales.add(toSale(pending.row(), run));
+                valid.add(pending);
+            } catch (IllegalArgumentException e) {
+                run.skip(pending.lineNumber(), e.getMessage());
+            }
+        }
+        if (sales.isEmpty()) {
+            return;
+        }
+
+        try {
+            save(sales);
+            run.imported += sales.size();
+        } catch (RuntimeException e) {
+            // e.g. an order number inserted by someone else since the check above;
+            // retry row by row so only the rows that fail are skipped
+            log.warn("Sale import chunk for lines {}-{} failed, retrying row by row",
+                    valid.get(0).lineNumber(), valid.get(valid.size() - 1).lineNumber(), e);
+            valid.forEach(pending -> persistOne(pending, run));
+        }
+    }
+
+    private void persistOne(PendingRow pending, ImportRun run) {
+        try {
+            // Rebuilt: the entity from the failed chunk may already carry an id
+            save(List.of(toSale(pending.row(), run)));
+            run.imported++;
+        } catch (RuntimeException e) {
+            log.error("Sale import failed for line {}", pending.lineNumber(), e);
+            run.skip(pending.lineNumber(), SAVE_FAILED);
+        }
+    }
+
+    private void save(List<Sale> sales) {
+        transactionTemplate.executeWithoutResult(status -> {
+            saleRepository.saveAll(sales);
+            // The request-scoped persistence context outlives this chunk;
+            // clear it so memory stays flat across the whole file.
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    private Sale toSale(SaleImportRow row, ImportRun run) {
+        require(row.customerName() != null && !row.customerName().isBlank(), "falta customerName");
+        require(row.sellerEmail() != null && !row.sellerEmail().isBlank(), "falta sellerEmail");
+        require(row.orderDate() != null, "falta orderDate");
+        require(row.total() != null && row.total().signum() > 0, "total debe ser positivo");
+
+        String sellerEmail = row.sellerEmail().trim();
+        User seller = run.sellers.computeIfAbsent(sellerEmail, userRepository::findByEmail)
+                .orElseThrow(() -> new IllegalArgumentException("vendedor no encontrado: " + sellerEmail));
+
+        BigDecimal total = row.total();
+        BigDecimal shipping = row.shipping() != null ? row.shipping() : BigDecimal.ZERO;
+        BigDecimal subtotal = row.subtotal() != null ? row.subtotal() : total.subtract(shipping);
+        BigDecimal paid = row.paidAmount() != null ? row.paidAmount() : BigDecimal.ZERO;
+        require(subtotal.signum() > 0, "subtotal debe ser positivo");
+        require(paid.signum() >= 0 && paid.compareTo(total) <= 0, "paidAmount debe estar entre 0 y el total");
+
+        // Same states the payment flow would leave the sale in, unless given
+        PaymentStatus paymentStatus = paid.signum() == 0 ? PaymentStatus.UNPAID
+                : paid.compareTo(total) < 0 ? PaymentStatus.PARTIALLY_PAID : PaymentStatus.PAID;
+        SaleStatus status = row.status() != null ? row.status()
+                : paymentStatus == PaymentStatus.PAID ? SaleStatus.UNDER_REVIEW : SaleStatus.PENDING;
+        BigDecimal commissionPercentage = seller.getCommissionPercentage() != null
+                ? seller.getCommissionPercentage() : DEFAULT_COMMISSION_PERCENTAGE;
+        BigDecimal commissionAmount = paymentStatus == PaymentStatus.PAID && status != SaleStatus.REJECTED
+                ? saleService.calculateCommission(total, commissionPercentage) : BigDecimal.ZERO;
+
+        Sale sale = Sale.builder()
+                .seller(seller)
+                .orderNumber(row.orderNumber())
+                .customerName(row.customerName())
+                .customerIdNumber(row.customerIdNumber())
+                .customerAddress(row.customerAddress())
+                .customerCity(row.customerCity())
+                .customerPhone(row.customerPhone())
+                .customerEmail(row.customerEmail())
+                .subtotal(subtotal)
+                .shipping(shipping)
+                .total(total)
+                .commissionPercentage(commissionPercentage)
+                .commissionAmount(commissionAmount)
+                // Historical approved commissions were already paid in an earlier cycle
+                .commissionSettled(row.commissionSettled() != null ? row.commissionSettled()
+                        : status == SaleStatus.APPROVED)
+                .saleType(row.saleType() != null ? row.saleType() : SaleType.STANDARD)
+                .tvModel(row.tvModel())
+                .tvSerialNumber(row.tvSerialNumber())
+                .status(status)
+                .paymentStatus(paymentStatus)
+                .paidAmount(paid)
+                .orderDate(row.orderDate())
+                .build();
+        if (status == SaleStatus.PENDING) {
+            // From the import, not the old order date, so the import does not make every reminder due at once
+            ReminderSchedule.initialize(sale, run.startedAt);
+        }
+
+        if (paid.signum() > 0) {
+            sale.getPayments().add(Payment.builder()
+                    .sale(sale)
+                    .amount(paid)
+                    .paymentMethod(row.paymentMethod() != null ? row.paymentMethod() : PaymentMethod.OTHER)
+                    .registeredBy(run.importedBy)
+                    .notes("Importado")
+                    .build());
+        }
+        return sale;
+    }
+
+    private SaleImportRow fromCsv(String[] header, String[] values) {
+        if (values.length > header.length) {
+            throw new IllegalArgumentException("la fila tiene más columnas que el encabezado");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            if (!values[i].isBlank()) {
+                fields.put(header[i].trim(), values[i].trim());
+            }
+        }
+        return objectMapper.convertValue(fields, SaleImportRow.class);
+    }
+
+    /**
+     * Splits one CSV line. Fields may be quoted, with "" as an escaped quote;
+     * quoted line breaks are not supported.
+     */
+    private static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("comillas sin cerrar");
+        }
+        fields.add(field.toString());
+        return fields.toArray(String[]::new);
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private record PendingRow(int lineNumber, SaleImportRow row) {
+    }
+
+    /**
+     * State of one import: rows waiting for the next chunk, counters and the
+     * sellers already looked up.
+     */
+    private static class ImportRun {
+        private final User importedBy;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final List<PendingRow> pending = new ArrayList<>();
+        private final Set<String> seenOrderNumbers = new HashSet<>();
+        private final Map<String, Optional<User>> sellers = new HashMap<>();
+        private final List<String> errors = new ArrayList<>();
+        private int imported;
+        private int skipped;
+
+        ImportRun(User importedBy) {
+            this.importedBy = importedBy;
+        }
+
+        void add(int lineNumber, SaleImportRow row) {
+            if (row.orderNumber() != null && !seenOrderNumbers.add(row.orderNumber())) {
+                skip(lineNumber, "número de pedido repetido en el archivo: " + row.orderNumber());
+                return;
+            }
+            pending.add(new PendingRow(lineNumber, row));
+        }
+
+        void skip(int lineNumber, String reason) {
+            skipped++;
+            report("Línea " + lineNumber + ": " + reason);
+        }
+
+        void report(String error) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.elmayorista.sale;
+
+import java.util.UUID;
+
+/**
+ * Minimal reference to a sale, used to snapshot which sales an operation covers.
+ */
+public record SaleRef(
+        Long id,
+        UUID sellerId,
+        SaleType saleType
+) {}
@@ -0,0 +1,37 @@
+package com.elmayorista.sale;
+
+import com.elmayorista.payment.PaymentMethod;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read-only view of a sale with the fields the Excel reports print.
+ * Being a plain projection it is never managed by the persistence context,
+ * so streaming thousands of them keeps memory flat.
+ *
+ * @param paymentMethod     Method of the latest payment, or null if unpaid.
+ * @param paymentReceiptUrl Receipt of the latest payment, or null if unpaid.
+ */
+public record SaleReportRow(
+        Long id,
+        UUID sellerId,
+        String sellerName,
+        String orderNumber,
+        String customerName,
+        String customerIdNumber,
+        String customerPhone,
+        BigDecimal subtotal,
+        BigDecimal shipping,
+        BigDecimal total,
+        BigDecimal commissionPercentage,
+        BigDecimal commissionAmount,
+        SaleStatus status,
+        SaleType saleType,
+        String tvModel,
+        String tvSerialNumber,
+        LocalDateTime orderDate,
+        PaymentMethod paymentMethod,
+        String paymentReceiptUrl
+) {}
@@ -1,24 +1,57 @@
 package com.elmayorista.sale;
 
+import com.elmayorista.payment.SalePaidTotal;
+import com.elmayorista.user.Role;
 import com.elmayorista.user.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface SaleRepository extends JpaRepository<Sale, Long> {
+public interface SaleRepository extends JpaRepository<Sale, Long>, SaleRepositoryCustom {
+
+    /**
+     * Rows fetched per round trip when streaming report rows.
+     */
+    String REPORT_FETCH_SIZE = "500";
+
+    /**
+     * Projection shared by the report row queries: each sale with its seller and
+     * latest payment. Latest by payment date, with the id only breaking ties:
+     * pooled sequence ids do not follow insert order across nodes.
+     */
+    String REPORT_ROW_SELECT = "SELECT new com.elmayorista.sale.SaleReportRow(s.id, u.id, u.fullName, " +
+            "s.orderNumber, s.customerName, s.customerIdNumber, s.customerPhone, s.subtotal, s.shipping, " +
+            "s.total, s.commissionPercentage, s.commissionAmount, s.status, s.saleType, s.tvModel, " +
+            "s.tvSerialNumber, s.orderDate, p.paymentMethod, p.receiptUrl) " +
+            "FROM Sale s JOIN s.seller u " +
+            "LEFT JOIN Payment p ON p.sale = s AND NOT EXISTS (SELECT p2.id FROM Payment p2 WHERE p2.sale = s " +
+            "AND (p2.paymentDate > p.paymentDate OR (p2.paymentDate = p.paymentDate AND p2.id > p.id))) ";
 
     Optional<Sale> findByOrderNumber(String orderNumber);
 
     boolean existsByOrderNumber(String orderNumber);
 
+    @Query("SELECT s.orderNumber FROM Sale s WHERE s.orderNumber IN :orderNumbers")
+    List<String> findExistingOrderNumbers(Collection<String> orderNumbers);
+
     List<Sale> findBySeller(User seller);
 
     Page<Sale> findBySeller(User seller, Pageable pageable);
@@ -27,7 +60,80 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
 
     Page<Sale> findByStatus(SaleStatus status, Pageable pageable);
 
-    List<Sale> findByCustomerNameContainingIgnoreCase(String customerName);
+    /**
+     * Sales in a status with a reminder, seller email or admin alert due.
+     */
+    @Query("SELECT s FROM Sale s WHERE s.status = :status " +
+            "AND (s.reminderDueAt <= :now OR s.sellerEmailDueAt <= :now OR s.adminAlertDueAt <= :now)")
+    List<Sale> findDueForReminders(SaleStatus status, LocalDateTime now);
+
+    /*
+     * Reminder schedule updates. They touch only the due columns, which Sale
+     * maps as not updatable, so they do not bump the version and never
+     * conflict with concurrent edits of a sale.
+     */
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.reminderDueAt = :reminderDueAt, s.sellerEmailDueAt = :sellerEmailDueAt, " +
+            "s.adminAlertDueAt = :adminAlertDueAt WHERE s.id = :id")
+    int scheduleReminders(Long id, LocalDateTime reminderDueAt, LocalDateTime sellerEmailDueAt,
+            LocalDateTime adminAlertDueAt);
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.reminderDueAt = :next WHERE s.status = :status AND s.reminderDueAt <= :now")
+    int advanceReminderDue(SaleStatus status, LocalDateTime now, LocalDateTime next);
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.sellerEmailDueAt = :next WHERE s.status = :status AND s.sellerEmailDueAt <= :now")
+    int advanceSellerEmailDue(SaleStatus status, LocalDateTime now, LocalDateTime next);
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.adminAlertDueAt = :next WHERE s.status = :status AND s.adminAlertDueAt <= :now")
+    int advanceAdminAlertDue(SaleStatus status, LocalDateTime now, LocalDateTime next);
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.sellerEmailDueAt = :dueAt WHERE s.id IN :ids")
+    int rescheduleSellerEmail(Collection<Long> ids, LocalDateTime dueAt);
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.adminAlertDueAt = :dueAt WHERE s.id IN :ids")
+    int rescheduleAdminAlert(Collection<Long> ids, LocalDateTime dueAt);
+
+    /*
+     * Keyset listings, newest first. They seek on (orderDate, id) and are
+     * backed by the composite indexes declared on Sale.
+     */
+
+    Window<Sale> findAllByOrderByOrderDateDescIdDesc(ScrollPosition position, Limit limit);
+
+    Window<Sale> findByStatusOrderByOrderDateDescIdDesc(SaleStatus status, ScrollPosition position, Limit limit);
+
+    Window<Sale> findBySellerOrderByOrderDateDescIdDesc(User seller, ScrollPosition position, Limit limit);
+
+    long countByStatus(SaleStatus status);
+
+    long countBySeller(User seller);
+
+    /**
+     * Sales whose customer name, ID number, order number or TV serial contain
+     * the pattern, most similar to the term first. Served by the pg_trgm GIN
+     * indexes created in db/schema-postgres.sql.
+     *
+     * @param pattern ILIKE pattern, with the term's wildcards escaped.
+     * @param term    Raw search term, used for the relevance order.
+     */
+    @Query(value = "SELECT s.* FROM sales s " +
+            "WHERE s.customer_name ILIKE :pattern OR s.customer_id_number ILIKE :pattern " +
+            "OR s.order_number ILIKE :pattern OR s.tv_serial_number ILIKE :pattern " +
+            "ORDER BY GREATEST(similarity(s.customer_name, :term), " +
+            "similarity(COALESCE(s.customer_id_number, ''), :term), " +
+            "similarity(COALESCE(s.order_number, ''), :term), " +
+            "similarity(COALESCE(s.tv_serial_number, ''), :term)) DESC, s.order_date DESC, s.id DESC",
+            countQuery = "SELECT COUNT(*) FROM sales s " +
+                    "WHERE s.customer_name ILIKE :pattern OR s.customer_id_number ILIKE :pattern " +
+                    "OR s.order_number ILIKE :pattern OR s.tv_serial_number ILIKE :pattern",
+            nativeQuery = true)
+    Page<Sale> searchByText(String pattern, String term, Pageable pageable);
 
     @Query("SELECT s FROM Sale s WHERE s.orderDate BETWEEN :startDate AND :endDate")
     List<Sale> findSalesBetweenDates(LocalDateTime startDate, LocalDateTime endDate);
@@ -45,4 +151,132 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
     List<Sale> findSalesBySellerAndOrderDateBetween(User seller, LocalDateTime startDate, LocalDateTime endDate);
 
     List<Sale> findByStatusAndCommissionSettledFalse(SaleStatus status);
+
+    boolean existsByStatusAndCommissionSettledFalse(SaleStatus status);
+
+    /**
+     * Sales that still have a balance to pay, largest balance first.
+     */
+    @Query(value = "SELECT s FROM Sale s WHERE s.total > s.paidAmount ORDER BY (s.total - s.paidAmount) DESC, s.id",
+            countQuery = "SELECT COUNT(s) FROM Sale s WHERE s.total > s.paidAmount")
+    Page<Sale> findWithBalance(Pageable pageable);
+
+    /**
+     * Sales whose stored paid amount differs from the sum of their payments.
+     */
+    @Query("SELECT new com.elmayorista.payment.SalePaidTotal(s.id, COALESCE(SUM(p.amount), 0)) " +
+            "FROM Sale s LEFT JOIN s.payments p GROUP BY s.id, s.paidAmount " +
+            "HAVING s.paidAmount <> COALESCE(SUM(p.amount), 0)")
+    List<SalePaidTotal> findPaidAmountMismatches();
+
+    /**
+     * Recompute the paid amount of the given sales from the payments table.
+     * The version is bumped so a concurrent payment update fails instead of
+     * overwriting the corrected value.
+     *
+     * @return The number of sales updated.
+     */
+    @Modifying
+    @Query("UPDATE Sale s SET s.paidAmount = " +
+            "(SELECT COALESCE(SUM(p.amount), 0) FROM Payment p WHERE p.sale = s), " +
+            "s.version = s.version + 1 WHERE s.id IN :ids")
+    int recomputePaidAmount(Collection<Long> ids);
+
+    /**
+     * Totals of the unsettled sales in a status, aggregated in a single row.
+     */
+    @Query("SELECT new com.elmayorista.sale.SaleTotals(MIN(s.orderDate), COALESCE(SUM(s.total), 0), " +
+            "COALESCE(SUM(s.commissionAmount), 0), COUNT(s)) " +
+            "FROM Sale s WHERE s.status = :status AND s.commissionSettled = false")
+    SaleTotals sumUnsettledByStatus(SaleStatus status);
+
+    /**
+     * References to the unsettled sales in a status, in report order (seller,
+     * then order date).
+     */
+    @Query("SELECT new com.elmayorista.sale.SaleRef(s.id, u.id, s.saleType) FROM Sale s JOIN s.seller u " +
+            "WHERE s.status = :status AND s.commissionSettled = false " +
+            "ORDER BY u.fullName, u.id, s.orderDate, s.id")
+    List<SaleRef> findUnsettledRefsByStatus(SaleStatus status);
+
+    /**
+     * Per-seller totals of the unsettled sales in a status, by seller name.
+     */
+    @Query("SELECT new com.elmayorista.sale.SellerSaleTotals(u.id, u.fullName, u.commissionPercentage, " +
+            "COALESCE(SUM(COALESCE(s.subtotal, s.total - COALESCE(s.shipping, 0), 0)), 0), " +
+            "COALESCE(SUM(s.shipping), 0), COALESCE(SUM(s.total), 0), COALESCE(SUM(s.commissionAmount), 0), " +
+            "COUNT(s)) " +
+            "FROM Sale s JOIN s.seller u WHERE s.status = :status AND s.commissionSettled = false " +
+            "GROUP BY u.id, u.fullName, u.commissionPercentage ORDER BY u.fullName, u.id")
+    List<SellerSaleTotals> sumUnsettledBySeller(SaleStatus status);
+
+    /**
+     * Stream report rows for the given sales in report order (seller, then order
+     * date). Must be consumed inside a transaction and closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = REPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(REPORT_ROW_SELECT + "WHERE s.id IN :ids ORDER BY u.fullName, u.id, s.orderDate, s.id")
+    Stream<SaleReportRow> streamReportRows(Collection<Long> ids);
+
+    /**
+     * Totals of every seller's sales, one row per seller and status.
+     */
+    @Query("SELECT new com.elmayorista.sale.SellerStatusTotals(s.seller.id, s.status, COUNT(s), " +
+            "COALESCE(SUM(s.total), 0), COALESCE(SUM(s.commissionAmount), 0)) " +
+            "FROM Sale s GROUP BY s.seller.id, s.status")
+    List<SellerStatusTotals> sumBySellerAndStatus();
+
+    /**
+     * Stream report rows of all sales of the users with a role, grouped by
+     * seller and then by order date. Must be consumed inside a transaction and
+     * closed.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = REPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(REPORT_ROW_SELECT + "JOIN u.roles r WHERE r = :role ORDER BY u.id, s.orderDate, s.id")
+    Stream<SaleReportRow> streamReportRowsBySellerRole(Role role);
+
+    @Query("SELECT new com.elmayorista.sale.SaleStatusRef(s.id, s.status) FROM Sale s WHERE s.id IN :ids")
+    List<SaleStatusRef> findStatusesByIds(Collection<Long> ids);
+
+    /**
+     * Bulk-approve the given sales that are still in the expected status.
+     *
+     * @return The number of sales approved.
+     */
+    @Modifying
+    @Query("UPDATE Sale s SET s.status = com.elmayorista.sale.SaleStatus.APPROVED, s.rejectionReason = null, " +
+            "s.version = s.version + 1, s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.id IN :ids AND s.status = :expected")
+    int approveAll(Collection<Long> ids, SaleStatus expected);
+
+    /**
+     * Bulk-reject the given sales that are still in the expected status,
+     * clearing their commission.
+     *
+     * @return The number of sales rejected.
+     */
+    @Modifying
+    @Query("UPDATE Sale s SET s.status = com.elmayorista.sale.SaleStatus.REJECTED, s.rejectionReason = :reason, " +
+            "s.commissionAmount = 0, s.commissionSettled = false, " +
+            "s.version = s.version + 1, s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.id IN :ids AND s.status = :expected")
+    int rejectAll(Collection<Long> ids, SaleStatus expected, String reason);
+
+    /**
+     * Bulk-settle the commissions of the given sales. The version is bumped so
+     * a sale loaded before the close cannot be saved back as unsettled.
+     *
+     * @return The number of sales settled by this call.
+     */
+    @Modifying
+    @Query("UPDATE Sale s SET s.commissionSettled = true, " +
+            "s.version = s.version + 1, s.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE s.id IN :ids AND s.commissionSettled = false")
+    int settleCommissions(Collection<Long> ids);
 }
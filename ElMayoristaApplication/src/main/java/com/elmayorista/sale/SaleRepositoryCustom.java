@@ -0,0 +1,34 @@
+package com.elmayorista.sale;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Queries of {@link SaleRepository} that are built at runtime.
+ */
+public interface SaleRepositoryCustom {
+
+    /**
+     * Sales matching every non-null filter, newest first. The pageable sort is
+     * ignored so the composite (filter, order_date) indexes can serve the order.
+     */
+    Page<SaleSummary> search(SaleSearchCriteria criteria, Pageable pageable);
+
+    /**
+     * Applies a commission percentage to all of a seller's unsettled sales in a
+     * single UPDATE. Sales whose commission is already computed (fully paid and
+     * not rejected) get the amount recalculated with the same rounding as
+     * {@link SaleService#calculateCommission}; the rest keep a zero amount.
+     *
+     * @param status Only sales in this status, or all when null.
+     * @param from   Inclusive lower bound of the order date, or null.
+     * @param to     Exclusive upper bound of the order date, or null.
+     * @return The number of sales updated.
+     */
+    int recalculateCommissions(UUID sellerId, BigDecimal percentage, SaleStatus status,
+            LocalDateTime from, LocalDateTime to);
+}
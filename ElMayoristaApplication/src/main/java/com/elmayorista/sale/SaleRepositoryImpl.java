@@ -0,0 +1,121 @@
+package com.elmayorista.sale;
+
+import com.elmayorista.payment.PaymentStatus;
+import com.elmayorista.user.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.CriteriaUpdate;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+class SaleRepositoryImpl implements SaleRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<SaleSummary> search(SaleSearchCriteria criteria, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<SaleSummary> query = cb.createQuery(SaleSummary.class);
+        Root<Sale> sale = query.from(Sale.class);
+        Join<Sale, User> seller = sale.join("seller");
+        query.select(cb.construct(SaleSummary.class,
+                        sale.get("id"), sale.get("orderNumber"), sale.get("customerName"),
+                        seller.get("id"), seller.get("fullName"), sale.get("total"), sale.get("paidAmount"),
+                        sale.get("commissionAmount"), sale.get("status"), sale.get("paymentStatus"),
+                        sale.get("saleType"), sale.get("commissionSettled"), sale.get("orderDate")))
+                .where(filters(cb, sale, criteria))
+                .orderBy(cb.desc(sale.get("orderDate")), cb.desc(sale.get("id")));
+
+        List<SaleSummary> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        // The count only runs when the page alone does not tell the total
+        return PageableExecutionUtils.getPage(content, pageable, () -> {
+            CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+            Root<Sale> countRoot = countQuery.from(Sale.class);
+            countQuery.select(cb.count(countRoot)).where(filters(cb, countRoot, criteria));
+            return entityManager.createQuery(countQuery).getSingleResult();
+        });
+    }
+
+    @Override
+    public int recalculateCommissions(UUID sellerId, BigDecimal percentage, SaleStatus status,
+            LocalDateTime from, LocalDateTime to) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Sale> update = cb.createCriteriaUpdate(Sale.class);
+        Root<Sale> sale = update.from(Sale.class);
+
+        // Rate rounded in Java exactly like calculateCommission, amount rounded HALF_UP by the database
+        BigDecimal rate = percentage.divide(new BigDecimal("100"), 4, RoundingMode.HALF_UP);
+        Expression<BigDecimal> amount = cb.<BigDecimal>selectCase()
+                .when(cb.and(
+                                cb.equal(sale.get("paymentStatus"), PaymentStatus.PAID),
+                                cb.notEqual(sale.get("status"), SaleStatus.REJECTED)),
+                        cb.round(cb.prod(sale.<BigDecimal>get("total"), rate), 2))
+                .otherwise(BigDecimal.ZERO);
+
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.equal(sale.get("seller").get("id"), sellerId));
+        predicates.add(cb.isFalse(sale.get("commissionSettled")));
+        if (status != null) {
+            predicates.add(cb.equal(sale.get("status"), status));
+        }
+        if (from != null) {
+            predicates.add(cb.greaterThanOrEqualTo(sale.get("orderDate"), from));
+        }
+        if (to != null) {
+            predicates.add(cb.lessThan(sale.get("orderDate"), to));
+        }
+
+        update.set(sale.<BigDecimal>get("commissionPercentage"), percentage)
+                .set(sale.<BigDecimal>get("commissionAmount"), amount)
+                .set(sale.<Long>get("version"), cb.sum(sale.<Long>get("version"), 1L))
+                .set(sale.<LocalDateTime>get("updatedAt"), cb.localDateTime())
+                .where(predicates.toArray(Predicate[]::new));
+        return entityManager.createQuery(update).executeUpdate();
+    }
+
+    private Predicate[] filters(CriteriaBuilder cb, Root<Sale> sale, SaleSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (criteria.sellerId() != null) {
+            predicates.add(cb.equal(sale.get("seller").get("id"), criteria.sellerId()));
+        }
+        if (criteria.from() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(sale.get("orderDate"), criteria.from()));
+        }
+        if (criteria.to() != null) {
+            predicates.add(cb.lessThan(sale.get("orderDate"), criteria.to()));
+        }
+        if (criteria.status() != null) {
+            predicates.add(cb.equal(sale.get("status"), criteria.status()));
+        }
+        if (criteria.saleType() != null) {
+            predicates.add(cb.equal(sale.get("saleType"), criteria.saleType()));
+        }
+        if (criteria.paymentStatus() != null) {
+            predicates.add(cb.equal(sale.get("paymentStatus"), criteria.paymentStatus()));
+        }
+        if (criteria.commissionSettled() != null) {
+            predicates.add(cb.equal(sale.get("commissionSettled"), criteria.commissionSettled()));
+        }
+        return predicates.toArray(Predicate[]::new);
+    }
+}
@@ -0,0 +1,12 @@
+package com.elmayorista.sale;
+
+import jakarta.validation.constraints.NotNull;
+
+/**
+ * Review decision for one sale in a batch review.
+ */
+public record SaleReviewDecision(
+        @NotNull(message = "El ID de la venta es obligatorio") Long saleId,
+        boolean approved,
+        String rejectionReason
+) {}
@@ -0,0 +1,20 @@
+package com.elmayorista.sale;
+
+/**
+ * Outcome of one sale in a batch review: the new status, or the reason it was
+ * not reviewed.
+ */
+public record SaleReviewResult(
+        Long saleId,
+        SaleStatus status,
+        String error
+) {
+
+    static SaleReviewResult reviewed(Long saleId, SaleStatus status) {
+        return new SaleReviewResult(saleId, status, null);
+    }
+
+    static SaleReviewResult failed(Long saleId, String error) {
+        return new SaleReviewResult(saleId, null, error);
+    }
+}
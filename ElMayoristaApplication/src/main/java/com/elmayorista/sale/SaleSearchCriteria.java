@@ -0,0 +1,23 @@
+package com.elmayorista.sale;
+
+import com.elmayorista.payment.PaymentStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Filters of the admin sale search. Null fields are not applied.
+ *
+ * @param from Inclusive lower bound of the order date.
+ * @param to   Exclusive upper bound of the order date.
+ */
+public record SaleSearchCriteria(
+        UUID sellerId,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+        SaleStatus status,
+        SaleType saleType,
+        PaymentStatus paymentStatus,
+        Boolean commissionSettled
+) {}
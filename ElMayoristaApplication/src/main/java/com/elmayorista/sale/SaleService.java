@@ -1,13 +1,17 @@
 package com.elmayorista.sale;
 
 import com.elmayorista.notification.NotificationService;
+import com.elmayorista.notification.ReminderSchedule;
 import com.elmayorista.service.FileStorageService;
 import com.elmayorista.user.User;
 import com.elmayorista.user.UserService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -16,16 +20,39 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class SaleService {
 
+    /**
+     * Largest page size accepted by the keyset listings.
+     */
+    private static final int MAX_KEYSET_PAGE_SIZE = 100;
+
+    /**
+     * Largest number of decisions accepted by a batch review.
+     */
+    private static final int MAX_BATCH_REVIEW_SIZE = 500;
+
+    /**
+     * Shortest term the text search accepts. Trigram indexes cannot serve
+     * patterns shorter than three characters.
+     */
+    private static final int MIN_TEXT_SEARCH_LENGTH = 3;
+
     private final SaleRepository saleRepository;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final TvOrderNumberGenerator tvOrderNumberGenerator;
 
     public BigDecimal calculateCommission(BigDecimal total, BigDecimal percentage) {
         if (percentage == null) {
@@ -65,6 +92,7 @@ public class SaleService {
         sale.setCommissionSettled(false);
 
         sale.setStatus(SaleStatus.PENDING);
+        ReminderSchedule.initialize(sale);
 
         return saleRepository.save(sale);
     }
@@ -77,7 +105,7 @@ public class SaleService {
         Sale sale = Sale.builder()
                 .seller(seller)
                 .saleType(SaleType.TV)
-                .orderNumber("TV-" + System.currentTimeMillis())
+                .orderNumber(tvOrderNumberGenerator.next())
                 .customerName(dto.getCustomerName())
                 .customerIdNumber(dto.getCustomerIdNumber())
                 .customerAddress(dto.getCustomerAddress())
@@ -97,6 +125,7 @@ public class SaleService {
                                 ? seller.getCommissionPercentage()
                                 : new BigDecimal("5.00"))
                 .build();
+        ReminderSchedule.initialize(sale);
 
         return saleRepository.save(sale);
     }
@@ -134,6 +163,71 @@ public class SaleService {
         return saved;
     }
 
+    /**
+     * Revisa varias ventas en una sola transacción. Las decisiones inválidas o
+     * sobre ventas que no están EN REVISIÓN se informan en el resultado sin
+     * afectar al resto.
+     *
+     * @return Un resultado por decisión, en el mismo orden.
+     */
+    @Transactional
+    public List<SaleReviewResult> reviewSales(List<SaleReviewDecision> decisions) {
+        if (decisions.size() > MAX_BATCH_REVIEW_SIZE) {
+            throw new IllegalArgumentException(
+                    "No se pueden revisar más de " + MAX_BATCH_REVIEW_SIZE + " ventas a la vez.");
+        }
+
+        Map<Long, SaleStatus> statuses = saleRepository.findStatusesByIds(
+                        decisions.stream().map(SaleReviewDecision::saleId).toList()).stream()
+                .collect(Collectors.toMap(SaleStatusRef::id, SaleStatusRef::status));
+
+        SaleReviewResult[] results = new SaleReviewResult[decisions.size()];
+        Set<Long> seen = new HashSet<>();
+        List<Long> approvedIds = new ArrayList<>();
+        Map<String, List<Long>> rejectedIdsByReason = new LinkedHashMap<>();
+
+        for (int i = 0; i < decisions.size(); i++) {
+            SaleReviewDecision decision = decisions.get(i);
+            Long saleId = decision.saleId();
+            SaleStatus status = statuses.get(saleId);
+
+            if (!seen.add(saleId)) {
+                results[i] = SaleReviewResult.failed(saleId, "Venta repetida en la solicitud.");
+            } else if (status == null) {
+                results[i] = SaleReviewResult.failed(saleId, "Venta no encontrada con ID: " + saleId);
+            } else if (status != SaleStatus.UNDER_REVIEW) {
+                results[i] = SaleReviewResult.failed(saleId,
+                        "Solo se puede revisar una venta que esté EN REVISIÓN. Estado actual: " + status);
+            } else if (decision.approved()) {
+                approvedIds.add(saleId);
+                results[i] = SaleReviewResult.reviewed(saleId, SaleStatus.APPROVED);
+            } else if (decision.rejectionReason() == null || decision.rejectionReason().isBlank()) {
+                results[i] = SaleReviewResult.failed(saleId, "Se requiere un motivo de rechazo.");
+            } else {
+                rejectedIdsByReason.computeIfAbsent(decision.rejectionReason(), r -> new ArrayList<>()).add(saleId);
+                results[i] = SaleReviewResult.reviewed(saleId, SaleStatus.REJECTED);
+            }
+        }
+
+        // The status guard in each update catches sales reviewed concurrently
+        int expected = approvedIds.size();
+        int updated = approvedIds.isEmpty() ? 0 : saleRepository.approveAll(approvedIds, SaleStatus.UNDER_REVIEW);
+        List<Long> reviewedIds = new ArrayList<>(approvedIds);
+        for (Map.Entry<String, List<Long>> rejected : rejectedIdsByReason.entrySet()) {
+            expected += rejected.getValue().size();
+            updated += saleRepository.rejectAll(rejected.getValue(), SaleStatus.UNDER_REVIEW, rejected.getKey());
+            reviewedIds.addAll(rejected.getValue());
+        }
+        if (updated != expected) {
+            throw new IllegalStateException(
+                    "Algunas ventas cambiaron de estado durante la revisión. Intente nuevamente.");
+        }
+
+        notificationService.clearNotificationsForSales(reviewedIds);
+
+        return List.of(results);
+    }
+
     @Transactional
     public Sale updateSaleStatus(Long id, SaleStatus newStatus) {
         Sale sale = saleRepository.findById(id)
@@ -141,8 +235,16 @@ public class SaleService {
 
         validateStatusChange(sale.getStatus(), newStatus);
 
+        boolean backToPending = newStatus == SaleStatus.PENDING && sale.getStatus() != SaleStatus.PENDING;
         sale.setStatus(newStatus);
-        return saleRepository.save(sale);
+        Sale saved = saleRepository.save(sale);
+        if (backToPending) {
+            // Reminders start over; imported or reviewed sales may have no due times at all
+            ReminderSchedule.initialize(saved);
+            saleRepository.scheduleReminders(saved.getId(), saved.getReminderDueAt(),
+                    saved.getSellerEmailDueAt(), saved.getAdminAlertDueAt());
+        }
+        return saved;
     }
 
     private void validateStatusChange(SaleStatus currentStatus, SaleStatus newStatus) {
@@ -166,6 +268,23 @@ public class SaleService {
         return saleRepository.save(sale);
     }
 
+    /**
+     * Aplica el porcentaje de comisión actual del vendedor a todas sus ventas no
+     * liquidadas, opcionalmente filtradas por estado y rango de fechas.
+     *
+     * @return Número de ventas actualizadas.
+     */
+    @Transactional
+    public int recalculateSellerCommissions(UUID sellerId, SaleStatus status, LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("La fecha inicial debe ser anterior a la fecha final");
+        }
+        User seller = userService.getUserById(sellerId);
+        BigDecimal percentage = seller.getCommissionPercentage() != null
+                ? seller.getCommissionPercentage() : new BigDecimal("5.00");
+        return saleRepository.recalculateCommissions(seller.getId(), percentage, status, from, to);
+    }
+
     @Transactional(readOnly = true)
     public Page<Sale> getSalesBySeller(UUID sellerId, Pageable pageable) {
         User seller = userService.getUserById(sellerId);
@@ -182,6 +301,78 @@ public class SaleService {
         return saleRepository.findAll(pageable);
     }
 
+    /**
+     * Keyset listing of all sales, newest first.
+     *
+     * @param cursor Token returned by the previous page, null for the first one.
+     * @param size   Page size, capped at {@value #MAX_KEYSET_PAGE_SIZE}.
+     * @param count  Whether to also count all sales.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<Sale> scrollAllSales(String cursor, int size, boolean count) {
+        Window<Sale> window = saleRepository.findAllByOrderByOrderDateDescIdDesc(
+                SaleCursor.decode(cursor), keysetLimit(size));
+        return toKeysetPage(window, count ? saleRepository.count() : null);
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<Sale> scrollSalesByStatus(SaleStatus status, String cursor, int size, boolean count) {
+        Window<Sale> window = saleRepository.findByStatusOrderByOrderDateDescIdDesc(
+                status, SaleCursor.decode(cursor), keysetLimit(size));
+        return toKeysetPage(window, count ? saleRepository.countByStatus(status) : null);
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<Sale> scrollSalesBySeller(UUID sellerId, String cursor, int size, boolean count) {
+        User seller = userService.getUserById(sellerId);
+        Window<Sale> window = saleRepository.findBySellerOrderByOrderDateDescIdDesc(
+                seller, SaleCursor.decode(cursor), keysetLimit(size));
+        return toKeysetPage(window, count ? saleRepository.countBySeller(seller) : null);
+    }
+
+    private Limit keysetLimit(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a cero");
+        }
+        return Limit.of(Math.min(size, MAX_KEYSET_PAGE_SIZE));
+    }
+
+    private KeysetPage<Sale> toKeysetPage(Window<Sale> window, Long totalElements) {
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? SaleCursor.encode(window.positionAt(window.size() - 1))
+                : null;
+        return new KeysetPage<>(window.getContent(), nextCursor, nextCursor != null, totalElements);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<SaleSummary> searchSales(SaleSearchCriteria criteria, Pageable pageable) {
+        if (criteria.from() != null && criteria.to() != null && !criteria.from().isBefore(criteria.to())) {
+            throw new IllegalArgumentException("La fecha inicial debe ser anterior a la fecha final");
+        }
+        return saleRepository.search(criteria, pageable);
+    }
+
+    /**
+     * Busca ventas por nombre o cédula del cliente, número de pedido o serie del
+     * televisor, ordenadas por similitud con el término.
+     */
+    @Transactional(readOnly = true)
+    public Page<Sale> searchSalesByText(String term, Pageable pageable) {
+        String trimmed = term == null ? "" : term.trim();
+        if (trimmed.length() < MIN_TEXT_SEARCH_LENGTH) {
+            throw new IllegalArgumentException(
+                    "La búsqueda debe tener al menos " + MIN_TEXT_SEARCH_LENGTH + " caracteres");
+        }
+        String escaped = trimmed.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return saleRepository.searchByText("%" + escaped + "%", trimmed,
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Sale> getSalesWithBalance(Pageable pageable) {
+        return saleRepository.findWithBalance(pageable);
+    }
+
     @Transactional(readOnly = true)
     public BigDecimal getTotalCommissionForSeller(UUID sellerId) {
         User seller = userService.getUserById(sellerId);
@@ -0,0 +1,10 @@
+package com.elmayorista.sale;
+
+/**
+ * Id and current status of a sale, used to check state transitions without
+ * loading the entity.
+ */
+public record SaleStatusRef(
+        Long id,
+        SaleStatus status
+) {}
@@ -0,0 +1,26 @@
+package com.elmayorista.sale;
+
+import com.elmayorista.payment.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Lean view of a sale returned by the admin search, without details or payments.
+ */
+public record SaleSummary(
+        Long id,
+        String orderNumber,
+        String customerName,
+        UUID sellerId,
+        String sellerName,
+        BigDecimal total,
+        BigDecimal paidAmount,
+        BigDecimal commissionAmount,
+        SaleStatus status,
+        PaymentStatus paymentStatus,
+        SaleType saleType,
+        boolean commissionSettled,
+        LocalDateTime orderDate
+) {}
@@ -0,0 +1,19 @@
+package com.elmayorista.sale;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate totals for a set of sales, computed by the database.
+ *
+ * @param firstOrderDate   Earliest order date, or null when there are no sales.
+ * @param totalSales       Sum of the sale totals.
+ * @param totalCommissions Sum of the commission amounts.
+ * @param salesCount       Number of sales.
+ */
+public record SaleTotals(
+        LocalDateTime firstOrderDate,
+        BigDecimal totalSales,
+        BigDecimal totalCommissions,
+        long salesCount
+) {}
@@ -0,0 +1,19 @@
+package com.elmayorista.sale;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Aggregate totals of one seller's sales, computed by the database.
+ * A missing subtotal counts as total minus shipping, as in the reports.
+ */
+public record SellerSaleTotals(
+        UUID sellerId,
+        String sellerName,
+        BigDecimal commissionPercentage,
+        BigDecimal subtotal,
+        BigDecimal shipping,
+        BigDecimal total,
+        BigDecimal commission,
+        long salesCount
+) {}
@@ -0,0 +1,15 @@
+package com.elmayorista.sale;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Aggregate totals of one seller's sales in one status, computed by the database.
+ */
+public record SellerStatusTotals(
+        UUID sellerId,
+        SaleStatus status,
+        long salesCount,
+        BigDecimal total,
+        BigDecimal commission
+) {}
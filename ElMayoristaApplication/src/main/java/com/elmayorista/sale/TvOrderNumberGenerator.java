@@ -0,0 +1,74 @@
+package com.elmayorista.sale;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allocates TV sale order numbers with a hi/lo scheme over
+ * {@code tv_order_number_seq}: each sequence value reserves a block of
+ * {@value #BLOCK_SIZE} numbers that are then handed out from memory without
+ * locking. Only the refill takes a lock, so each block costs exactly one
+ * database round trip. Numbers are unique across instances; gaps are expected
+ * after restarts.
+ */
+@Component
+@RequiredArgsConstructor
+public class TvOrderNumberGenerator {
+
+    static final int BLOCK_SIZE = 100;
+
+    private static final String PREFIX = "TV-";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(0, 0));
+
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public String next() {
+        while (true) {
+            Block block = current.get();
+            long value = block.next.getAndIncrement();
+            if (value < block.end) {
+                return PREFIX + value;
+            }
+            refill(block);
+        }
+    }
+
+    /**
+     * Installs a fresh block in place of the exhausted one. Threads that find
+     * it already replaced once they hold the lock fetch nothing.
+     */
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (current.get() == exhausted) {
+                current.set(fetchBlock());
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private Block fetchBlock() {
+        Long hi = jdbcTemplate.queryForObject("SELECT nextval('tv_order_number_seq')", Long.class);
+        long start = hi * BLOCK_SIZE;
+        return new Block(start, start + BLOCK_SIZE);
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
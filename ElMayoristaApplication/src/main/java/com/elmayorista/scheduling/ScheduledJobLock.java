@@ -0,0 +1,45 @@
+package com.elmayorista.scheduling;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease for a scheduled job shared by every node. A node runs the job only
+ * after taking the lease, i.e. when {@code lockedUntil} has passed; the row
+ * also records the last run. Times come from the database clock.
+ */
+@Entity
+@Table(name = "scheduled_job_locks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledJobLock {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "last_started_at")
+    private LocalDateTime lastStartedAt;
+
+    @Column(name = "last_finished_at")
+    private LocalDateTime lastFinishedAt;
+
+    @Column(name = "last_duration_ms")
+    private Long lastDurationMs;
+
+    @Column(name = "last_succeeded_at")
+    private LocalDateTime lastSucceededAt;
+}
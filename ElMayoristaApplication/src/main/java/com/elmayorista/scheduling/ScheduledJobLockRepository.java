@@ -0,0 +1,48 @@
+package com.elmayorista.scheduling;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ScheduledJobLockRepository extends JpaRepository<ScheduledJobLock, String> {
+
+    /**
+     * Whether the job last succeeded less than {@code seconds} ago, by the
+     * database clock that {@link #unlock} records it with.
+     */
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM scheduled_job_locks WHERE name = :name " +
+            "AND last_succeeded_at > LOCALTIMESTAMP - :seconds * INTERVAL '1 second')",
+            nativeQuery = true)
+    boolean succeededWithin(String name, long seconds);
+
+    /**
+     * Takes the lease of a job if nobody holds it, creating its row on first use.
+     *
+     * @return 1 if the lease was taken, 0 if another node holds it.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO scheduled_job_locks (name, locked_by, locked_until, last_started_at) " +
+            "VALUES (:name, :owner, LOCALTIMESTAMP + :leaseSeconds * INTERVAL '1 second', LOCALTIMESTAMP) " +
+            "ON CONFLICT (name) DO UPDATE SET locked_by = EXCLUDED.locked_by, " +
+            "locked_until = EXCLUDED.locked_until, last_started_at = EXCLUDED.last_started_at " +
+            "WHERE scheduled_job_locks.locked_until <= LOCALTIMESTAMP",
+            nativeQuery = true)
+    int tryLock(String name, String owner, long leaseSeconds);
+
+    /**
+     * Records the end of a run and releases the lease, keeping it at least
+     * {@code minHoldSeconds} after the start so nodes with a slightly skewed
+     * clock do not run the same trigger again.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE scheduled_job_locks SET " +
+            "locked_until = GREATEST(LOCALTIMESTAMP, last_started_at + :minHoldSeconds * INTERVAL '1 second'), " +
+            "last_finished_at = LOCALTIMESTAMP, last_duration_ms = :durationMs, " +
+            "last_succeeded_at = CASE WHEN :succeeded THEN LOCALTIMESTAMP ELSE last_succeeded_at END " +
+            "WHERE name = :name AND locked_by = :owner",
+            nativeQuery = true)
+    int unlock(String name, String owner, long minHoldSeconds, long durationMs, boolean succeeded);
+}
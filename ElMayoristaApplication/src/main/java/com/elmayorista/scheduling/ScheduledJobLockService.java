@@ -0,0 +1,61 @@
+package com.elmayorista.scheduling;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Runs scheduled jobs on a single node of the cluster, using a lease row per
+ * job in {@code scheduled_job_locks}. Nodes that find the lease taken skip
+ * the run after one statement.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ScheduledJobLockService {
+
+    /**
+     * Identifies this node in the lease rows ("pid@host").
+     */
+    private static final String OWNER = ManagementFactory.getRuntimeMXBean().getName();
+
+    private final ScheduledJobLockRepository scheduledJobLockRepository;
+
+    /**
+     * Whether the job finished successfully, on any node, within the given time.
+     */
+    public boolean succeededWithin(String jobName, Duration within) {
+        return scheduledJobLockRepository.succeededWithin(jobName, within.toSeconds());
+    }
+
+    /**
+     * Runs the task if this node can take the job's lease.
+     *
+     * @param lockAtMostFor  How long the lease lasts if this node dies mid-run.
+     *                       Must exceed the job's longest run.
+     * @param lockAtLeastFor Minimum time the lease is kept after the start.
+     * @return Whether the task ran on this node.
+     */
+    public boolean runExclusively(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        if (scheduledJobLockRepository.tryLock(jobName, OWNER, lockAtMostFor.toSeconds()) == 0) {
+            log.debug("Skipping job {}: lease held by another node", jobName);
+            return false;
+        }
+
+        log.info("Job {} started on {}", jobName, OWNER);
+        long start = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            task.run();
+            succeeded = true;
+            return true;
+        } finally {
+            long durationMs = (System.nanoTime() - start) / 1_000_000;
+            scheduledJobLockRepository.unlock(jobName, OWNER, lockAtLeastFor.toSeconds(), durationMs, succeeded);
+            log.info("Job {} {} on {} in {} ms", jobName, succeeded ? "finished" : "failed", OWNER, durationMs);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.elmayorista.scheduling;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Runs the startup catch-up of scheduled jobs in the background, after a
+ * delay, so a restarted node serves traffic before doing that work. The run
+ * is skipped when the job already succeeded recently on any node.
+ */
+@Component
+@Slf4j
+public class StartupJobRunner {
+
+    private final TaskScheduler taskScheduler;
+    private final ScheduledJobLockService scheduledJobLockService;
+    private final Duration delay;
+    private final Duration skipIfSucceededWithin;
+
+    public StartupJobRunner(TaskScheduler taskScheduler, ScheduledJobLockService scheduledJobLockService,
+            @Value("${app.jobs.startup-delay:2m}") Duration delay,
+            @Value("${app.jobs.startup-skip-if-succeeded-within:12h}") Duration skipIfSucceededWithin) {
+        this.taskScheduler = taskScheduler;
+        this.scheduledJobLockService = scheduledJobLockService;
+        this.delay = delay;
+        this.skipIfSucceededWithin = skipIfSucceededWithin;
+    }
+
+    /**
+     * Schedules the task to run once, {@code app.jobs.startup-delay} from now,
+     * under the job's lease.
+     */
+    public void runAfterStartup(String jobName, Duration lockAtMostFor, Duration lockAtLeastFor, Runnable task) {
+        taskScheduler.schedule(() -> {
+            try {
+                if (scheduledJobLockService.succeededWithin(jobName, skipIfSucceededWithin)) {
+                    log.info("Skipping startup run of job {}: it succeeded within the last {}",
+                            jobName, skipIfSucceededWithin);
+                    return;
+                }
+                scheduledJobLockService.runExclusively(jobName, lockAtMostFor, lockAtLeastFor, task);
+            } catch (RuntimeException e) {
+                log.error("Startup run of job {} failed", jobName, e);
+            }
+        }, Instant.now().plus(delay));
+        log.info("Startup run of job {} scheduled in {}", jobName, delay);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void logStartupTime(ApplicationReadyEvent event) {
+        log.info("Application ready in {} ms", event.getTimeTaken().toMillis());
+    }
+}
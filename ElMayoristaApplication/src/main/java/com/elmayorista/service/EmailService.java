@@ -4,6 +4,8 @@ import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailPreparationException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.scheduling.annotation.Async;
@@ -162,6 +164,16 @@ public class EmailService {
     }
 
     @Async
+    public void sendPendingSaleReminderToSellerAsync(String to, String sellerName, String orderNumber,
+            String customerName, String total, long daysPending) {
+        sendPendingSaleReminderToSeller(to, sellerName, orderNumber, customerName, total, daysPending);
+    }
+
+    /**
+     * Sends the reminder on the calling thread.
+     *
+     * @throws MailException if the email could not be sent, so the caller can retry it.
+     */
     public void sendPendingSaleReminderToSeller(String to, String sellerName, String orderNumber,
             String customerName, String total, long daysPending) {
         String subject = "Recordatorio: Venta " + orderNumber + " pendiente de pago - " + daysPending + " dias";
@@ -188,10 +200,14 @@ public class EmailService {
                 """,
                 sellerName, daysPending, orderNumber, customerName, total, salesLink);
 
-        sendHtmlEmail(to, subject, buildEmailTemplate(body));
+        sendHtmlEmailOrThrow(to, subject, buildEmailTemplate(body));
     }
 
-    @Async
+    /**
+     * Sends the alert on the calling thread.
+     *
+     * @throws MailException if the email could not be sent, so the caller can retry it.
+     */
     public void sendPendingSaleAlertToAdmin(String to, String sellerName, String sellerEmail,
             String orderNumber, String customerName, String total, long daysPending) {
         String subject = "ALERTA: Venta " + orderNumber + " lleva " + daysPending + " dias sin pagar";
@@ -221,10 +237,18 @@ public class EmailService {
                 """,
                 daysPending, orderNumber, customerName, total, sellerName, sellerEmail, reviewLink);
 
-        sendHtmlEmail(to, subject, buildEmailTemplate(body));
+        sendHtmlEmailOrThrow(to, subject, buildEmailTemplate(body));
     }
 
     private void sendHtmlEmail(String to, String subject, String htmlContent) {
+        try {
+            sendHtmlEmailOrThrow(to, subject, htmlContent);
+        } catch (MailPreparationException e) {
+            System.err.println("Error enviando email a " + to + ": " + e.getMessage());
+        }
+    }
+
+    private void sendHtmlEmailOrThrow(String to, String subject, String htmlContent) {
         try {
             MimeMessage message = mailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
@@ -236,7 +260,7 @@ public class EmailService {
 
             mailSender.send(message);
         } catch (MessagingException e) {
-            System.err.println("Error enviando email a " + to + ": " + e.getMessage());
+            throw new MailPreparationException("Error preparando el email a " + to, e);
         }
     }
 }
@@ -1,54 +1,79 @@
 package com.elmayorista.service;
 
-import com.elmayorista.sale.Sale;
+import com.elmayorista.report.ColumnWidths;
+import com.elmayorista.report.ReportStyles;
+import com.elmayorista.sale.SaleReportRow;
+import com.elmayorista.sale.SaleRepository;
+import com.elmayorista.sale.SaleStatus;
+import com.elmayorista.sale.SellerStatusTotals;
+import com.elmayorista.user.Role;
 import com.elmayorista.user.User;
 import com.elmayorista.user.UserService;
-import com.elmayorista.sale.SaleService;
 import lombok.RequiredArgsConstructor;
 import org.apache.poi.ss.usermodel.*;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
-import org.springframework.data.domain.Pageable;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ExcelReportService {
 
-    private final SaleService saleService;
+    /**
+     * Filas por hoja que se mantienen en memoria antes de volcarlas a disco.
+     */
+    private static final int ROW_WINDOW = 100;
+
+    private static final String[] VENDOR_COLUMNS = {"Fecha", "N° Orden", "Cliente", "Subtotal", "Envío", "Total",
+            "Comisión %", "Monto Comisión", "Estado"};
+
+    private final SaleRepository saleRepository;
     private final UserService userService;
 
-    public ByteArrayInputStream generateSettlementReport() throws IOException {
-        try (Workbook workbook = new XSSFWorkbook(); ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            
-            // Estilos
-            CellStyle headerStyle = workbook.createCellStyle();
-            Font headerFont = workbook.createFont();
-            headerFont.setBold(true);
-            headerStyle.setFont(headerFont);
-            
-            // 1. Pestaña de Resumen General
-            createGeneralSummarySheet(workbook, headerStyle);
-            
-            // 2. Pestañas por Vendedor
+    /**
+     * Escribe el reporte de liquidación directamente en {@code out}.
+     * El resumen sale de una sola consulta agregada y las hojas por vendedor se
+     * llenan en una sola pasada sobre las ventas, sin cargarlas en memoria
+     * (la transacción mantiene abierto el cursor).
+     */
+    @Transactional(readOnly = true)
+    public void writeSettlementReport(OutputStream out) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(ROW_WINDOW);
+        workbook.setCompressTempFiles(true);
+        try {
+            // Estilos (compartidos por todas las hojas)
+            CellStyle headerStyle = new ReportStyles(workbook).bold();
+
             List<User> vendors = userService.getAllVendors();
+
+            // 1. Pestaña de Resumen General
+            createGeneralSummarySheet(workbook, vendors, headerStyle);
+
+            // 2. Pestañas por Vendedor (creadas de antemano, llenadas en una sola pasada)
+            Map<UUID, VendorSheet> vendorSheets = new HashMap<>();
             for (User vendor : vendors) {
-                createVendorSheet(workbook, vendor, headerStyle);
+                vendorSheets.put(vendor.getId(), createVendorSheet(workbook, vendor, headerStyle));
             }
+            fillVendorSheets(vendorSheets);
 
             workbook.write(out);
-            return new ByteArrayInputStream(out.toByteArray());
+        } finally {
+            workbook.dispose();
+            workbook.close();
         }
     }
 
-    private void createGeneralSummarySheet(Workbook workbook, CellStyle headerStyle) {
+    private void createGeneralSummarySheet(Workbook workbook, List<User> vendors, CellStyle headerStyle) {
         Sheet sheet = workbook.createSheet("Resumen General");
         
         Row headerRow = sheet.createRow(0);
@@ -59,8 +84,22 @@ public class ExcelReportService {
             cell.setCellValue(columns[i]);
             cell.setCellStyle(headerStyle);
         }
-        
-        List<User> vendors = userService.getAllVendors();
+        ColumnWidths widths = new ColumnWidths();
+        widths.track(headerRow);
+
+        // Totales por vendedor y estado en una sola consulta
+        Map<UUID, BigDecimal> totalSales = new HashMap<>();
+        Map<UUID, BigDecimal> pendingComm = new HashMap<>();
+        Map<UUID, BigDecimal> approvedComm = new HashMap<>();
+        for (SellerStatusTotals totals : saleRepository.sumBySellerAndStatus()) {
+            totalSales.merge(totals.sellerId(), totals.total(), BigDecimal::add);
+            if (totals.status() == SaleStatus.PENDING || totals.status() == SaleStatus.UNDER_REVIEW) {
+                pendingComm.merge(totals.sellerId(), totals.commission(), BigDecimal::add);
+            } else if (totals.status() == SaleStatus.APPROVED) {
+                approvedComm.merge(totals.sellerId(), totals.commission(), BigDecimal::add);
+            }
+        }
+
         int rowIdx = 1;
         
         for (User vendor : vendors) {
@@ -68,54 +107,81 @@ public class ExcelReportService {
             
             row.createCell(0).setCellValue(vendor.getId().toString());
             row.createCell(1).setCellValue(vendor.getFullName());
-            
-            // Obtener datos reales (optimizables en un futuro con queries personalizadas)
-            List<Sale> sales = saleService.getSalesBySeller(vendor.getId(), Pageable.unpaged()).getContent();
-            BigDecimal totalSales = sales.stream().map(Sale::getTotal).reduce(BigDecimal.ZERO, BigDecimal::add);
-            BigDecimal pendingComm = sales.stream()
-                    .filter(s -> s.getStatus().name().equals("PENDING") || s.getStatus().name().equals("UNDER_REVIEW"))
-                    .map(Sale::getCommissionAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-            BigDecimal approvedComm = sales.stream()
-                    .filter(s -> s.getStatus().name().equals("APPROVED"))
-                    .map(Sale::getCommissionAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
-
-            row.createCell(2).setCellValue(totalSales.doubleValue());
-            row.createCell(3).setCellValue(pendingComm.doubleValue());
-            row.createCell(4).setCellValue(approvedComm.doubleValue());
+            row.createCell(2).setCellValue(totalSales.getOrDefault(vendor.getId(), BigDecimal.ZERO).doubleValue());
+            row.createCell(3).setCellValue(pendingComm.getOrDefault(vendor.getId(), BigDecimal.ZERO).doubleValue());
+            row.createCell(4).setCellValue(approvedComm.getOrDefault(vendor.getId(), BigDecimal.ZERO).doubleValue());
+            widths.track(row);
         }
+        widths.apply(sheet);
     }
 
-    private void createVendorSheet(Workbook workbook, User vendor, CellStyle headerStyle) {
+    private VendorSheet createVendorSheet(SXSSFWorkbook workbook, User vendor, CellStyle headerStyle) {
         // Limpiar nombre de la hoja (Excel tiene restricciones)
         String sheetName = vendor.getFullName().replaceAll("[^a-zA-Z0-9 ]", "");
         if (sheetName.length() > 30) sheetName = sheetName.substring(0, 30);
         
-        Sheet sheet = workbook.createSheet(sheetName);
-        
-        Row headerRow = sheet.createRow(0);
-        String[] columns = {"Fecha", "N° Orden", "Cliente", "Subtotal", "Envío", "Total", "Comisión %", "Monto Comisión", "Estado"};
+        VendorSheet vendorSheet = new VendorSheet(workbook.createSheet(sheetName));
         
-        for (int i = 0; i < columns.length; i++) {
+        Row headerRow = vendorSheet.sheet.createRow(0);
+        for (int i = 0; i < VENDOR_COLUMNS.length; i++) {
             Cell cell = headerRow.createCell(i);
-            cell.setCellValue(columns[i]);
+            cell.setCellValue(VENDOR_COLUMNS[i]);
             cell.setCellStyle(headerStyle);
         }
-        
-        List<Sale> sales = saleService.getSalesBySeller(vendor.getId(), Pageable.unpaged()).getContent();
-        int rowIdx = 1;
-        
-        for (Sale sale : sales) {
-            Row row = sheet.createRow(rowIdx++);
-            
-            row.createCell(0).setCellValue(sale.getOrderDate().toString());
-            row.createCell(1).setCellValue(sale.getOrderNumber());
-            row.createCell(2).setCellValue(sale.getCustomerName());
-            row.createCell(3).setCellValue(sale.getSubtotal().doubleValue());
-            row.createCell(4).setCellValue(sale.getShipping().doubleValue());
-            row.createCell(5).setCellValue(sale.getTotal().doubleValue());
-            row.createCell(6).setCellValue(sale.getCommissionPercentage().doubleValue());
-            row.createCell(7).setCellValue(sale.getCommissionAmount().doubleValue());
-            row.createCell(8).setCellValue(sale.getStatus().name());
+        vendorSheet.widths.track(headerRow);
+        return vendorSheet;
+    }
+
+    /**
+     * Recorre todas las ventas de los vendedores, ordenadas por vendedor, y las
+     * agrega a la hoja de cada uno. Al cambiar de vendedor se vuelcan a disco
+     * las filas de la hoja anterior, así solo una hoja ocupa memoria a la vez.
+     */
+    private void fillVendorSheets(Map<UUID, VendorSheet> vendorSheets) throws IOException {
+        VendorSheet current = null;
+        try (Stream<SaleReportRow> sales = saleRepository.streamReportRowsBySellerRole(Role.SELLER)) {
+            for (SaleReportRow sale : (Iterable<SaleReportRow>) sales::iterator) {
+                VendorSheet vendorSheet = vendorSheets.get(sale.sellerId());
+                if (vendorSheet == null) {
+                    continue;
+                }
+                if (vendorSheet != current) {
+                    if (current != null) {
+                        current.sheet.flushRows();
+                    }
+                    current = vendorSheet;
+                }
+
+                Row row = vendorSheet.sheet.createRow(vendorSheet.rowIdx++);
+                
+                row.createCell(0).setCellValue(sale.orderDate().toString());
+                row.createCell(1).setCellValue(sale.orderNumber());
+                row.createCell(2).setCellValue(sale.customerName());
+                row.createCell(3).setCellValue(sale.subtotal().doubleValue());
+                row.createCell(4).setCellValue(sale.shipping().doubleValue());
+                row.createCell(5).setCellValue(sale.total().doubleValue());
+                row.createCell(6).setCellValue(sale.commissionPercentage().doubleValue());
+                row.createCell(7).setCellValue(sale.commissionAmount().doubleValue());
+                row.createCell(8).setCellValue(sale.status().name());
+                vendorSheet.widths.track(row);
+            }
+        }
+        for (VendorSheet vendorSheet : vendorSheets.values()) {
+            vendorSheet.widths.apply(vendorSheet.sheet);
+        }
+    }
+
+    /**
+     * Hoja de un vendedor que se está llenando.
+     */
+    private static final class VendorSheet {
+
+        private final SXSSFSheet sheet;
+        private final ColumnWidths widths = new ColumnWidths();
+        private int rowIdx = 1;
+
+        private VendorSheet(SXSSFSheet sheet) {
+            this.sheet = sheet;
         }
     }
 }
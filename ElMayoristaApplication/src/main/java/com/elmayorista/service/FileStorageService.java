@@ -46,15 +46,7 @@ public class FileStorageService {
             throw new IllegalArgumentException("A path prefix is required for uploading files.");
         }
 
-        String originalFilename = file.getOriginalFilename();
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        }
-
-        // Generate a unique key for the file to avoid name collisions, including the
-        // prefix
-        String key = prefix + "/" + UUID.randomUUID().toString() + extension;
+        String key = buildKey(prefix, file.getOriginalFilename());
 
         PutObjectRequest request = PutObjectRequest.builder()
                 .bucket(bucketName)
@@ -90,14 +82,7 @@ public class FileStorageService {
             throw new IllegalArgumentException("A path prefix is required for uploading files.");
         }
 
-        String extension = "";
-        if (filename != null && filename.contains(".")) {
-            extension = filename.substring(filename.lastIndexOf("."));
-        }
-
-        // Generate a unique key for the file to avoid name collisions, including the
-        // prefix
-        String key = prefix + "/" + UUID.randomUUID().toString() + extension;
+        String key = buildKey(prefix, filename);
 
         PutObjectRequest request = PutObjectRequest.builder()
                 .bucket(bucketName)
@@ -112,4 +97,38 @@ public class FileStorageService {
         // Construct the public URL for the file using the public-facing domain.
         return publicUrl + "/" + key;
     }
-}
\ No newline at end of file
+
+    /**
+     * Opens a stream that uploads whatever is written to it to a specific path
+     * (prefix) in the configured R2 bucket, without holding the whole file in
+     * memory. The object exists once the stream is closed; call
+     * {@link MultipartUploadOutputStream#abort()} to discard it instead.
+     *
+     * @param filename    The filename to use (will be prefixed with UUID to avoid
+     *                    collisions).
+     * @param prefix      The path or "folder" where the file will be stored.
+     * @param contentType The MIME type of the file.
+     * @return The upload stream; its URL is available through
+     *         {@link MultipartUploadOutputStream#getUrl()}.
+     */
+    public MultipartUploadOutputStream openUpload(String filename, String prefix, String contentType) {
+        if (prefix == null || prefix.isBlank()) {
+            throw new IllegalArgumentException("A path prefix is required for uploading files.");
+        }
+
+        String key = buildKey(prefix, filename);
+        return new MultipartUploadOutputStream(s3Client, bucketName, key, contentType, publicUrl + "/" + key);
+    }
+
+    /**
+     * Generate a unique key for the file to avoid name collisions, including the
+     * prefix and keeping the original extension.
+     */
+    private String buildKey(String prefix, String filename) {
+        String extension = "";
+        if (filename != null && filename.contains(".")) {
+            extension = filename.substring(filename.lastIndexOf("."));
+        }
+        return prefix + "/" + UUID.randomUUID().toString() + extension;
+    }
+}
@@ -0,0 +1,185 @@
+package com.elmayorista.service;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OutputStream that uploads its content to R2 as it is written, using an S3
+ * multipart upload.
+ * Only one part is buffered at a time, so memory use is bounded by
+ * {@link #PART_SIZE} regardless of the object size. Content smaller than a
+ * single part is sent with a plain PutObject on close.
+ */
+public class MultipartUploadOutputStream extends OutputStream {
+
+    /**
+     * Size of each uploaded part. R2 and S3 require at least 5 MB for every
+     * part except the last one.
+     */
+    static final int PART_SIZE = 8 * 1024 * 1024;
+
+    private final S3Client s3Client;
+    private final String bucketName;
+    private final String key;
+    private final String contentType;
+    private final String url;
+
+    private final byte[] buffer = new byte[PART_SIZE];
+    private int buffered;
+    private String uploadId;
+    private final List<CompletedPart> parts = new ArrayList<>();
+    private boolean closed;
+
+    MultipartUploadOutputStream(S3Client s3Client, String bucketName, String key, String contentType, String url) {
+        this.s3Client = s3Client;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.contentType = contentType;
+        this.url = url;
+    }
+
+    /**
+     * The public URL the object will have once the stream is closed.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        if (buffered == PART_SIZE) {
+            flushPart();
+        }
+        buffer[buffered++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            if (buffered == PART_SIZE) {
+                flushPart();
+            }
+            int chunk = Math.min(len, PART_SIZE - buffered);
+            System.arraycopy(b, off, buffer, buffered, chunk);
+            buffered += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Uploads the remaining bytes and completes the upload.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (uploadId == null) {
+                PutObjectRequest request = PutObjectRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .contentLength((long) buffered)
+                        .build();
+                s3Client.putObject(request, currentBuffer());
+                return;
+            }
+            if (buffered > 0) {
+                uploadPart();
+            }
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        } catch (RuntimeException e) {
+            abortQuietly();
+            throw new IOException("Error al subir el archivo " + key, e);
+        }
+    }
+
+    /**
+     * Discards everything written so far. Parts already sent are removed from
+     * the bucket.
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        abortQuietly();
+    }
+
+    private void flushPart() throws IOException {
+        try {
+            if (uploadId == null) {
+                uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                        .bucket(bucketName)
+                        .key(key)
+                        .contentType(contentType)
+                        .build()).uploadId();
+            }
+            uploadPart();
+        } catch (RuntimeException e) {
+            abort();
+            throw new IOException("Error al subir el archivo " + key, e);
+        }
+    }
+
+    private void uploadPart() {
+        int partNumber = parts.size() + 1;
+        String eTag = s3Client.uploadPart(UploadPartRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength((long) buffered)
+                .build(), currentBuffer()).eTag();
+        parts.add(CompletedPart.builder().partNumber(partNumber).eTag(eTag).build());
+        buffered = 0;
+    }
+
+    private RequestBody currentBuffer() {
+        return RequestBody.fromInputStream(new ByteArrayInputStream(buffer, 0, buffered), buffered);
+    }
+
+    private void abortQuietly() {
+        if (uploadId == null) {
+            return;
+        }
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+        } catch (RuntimeException ignored) {
+            // Incomplete uploads are also expired by the bucket lifecycle
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.elmayorista.user;
 
+import com.elmayorista.sale.KeysetPage;
 import com.elmayorista.sale.Sale;
 import com.elmayorista.sale.SaleService;
 import jakarta.validation.Valid;
@@ -71,6 +72,24 @@ public class UserController {
         return ResponseEntity.ok(saleService.getSalesBySeller(id, pageable));
     }
 
+    /**
+     * Obtiene las ventas de un vendedor con paginación por cursor, de la más
+     * reciente a la más antigua.
+     *
+     * @param id     ID del usuario (vendedor)
+     * @param cursor Cursor devuelto por la página anterior
+     * @param size   Tamaño de página
+     * @param count  Si se debe calcular el total de ventas
+     * @return Página de ventas y cursor de la siguiente
+     */
+    @GetMapping("/{id}/sales/scroll")
+    public ResponseEntity<KeysetPage<Sale>> scrollSellerSales(@PathVariable UUID id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "false") boolean count) {
+        return ResponseEntity.ok(saleService.scrollSalesBySeller(id, cursor, size, count));
+    }
+
     /**
      * Obtiene la comisión de un usuario (vendedor) para el mes actual
      * 
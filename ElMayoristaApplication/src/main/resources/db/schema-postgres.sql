@@ -0,0 +1,65 @@
+-- Runs on every startup after Hibernate updates the schema (see
+-- spring.jpa.defer-datasource-initialization). Statements must be idempotent.
+
+-- Trigram indexes for the admin sale text search (ILIKE '%term%'). The pg_trgm
+-- extension must be installed once by a DBA (see docs/deployment.md); the
+-- application's role is not expected to be allowed to create extensions.
+CREATE INDEX IF NOT EXISTS idx_sales_customer_name_trgm ON sales USING gin (customer_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_sales_customer_id_number_trgm ON sales USING gin (customer_id_number gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_sales_order_number_trgm ON sales USING gin (order_number gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_sales_tv_serial_number_trgm ON sales USING gin (tv_serial_number gin_trgm_ops);
+
+-- Move the id sequences past the ids assigned while these tables used IDENTITY
+-- columns. Hibernate's pooled optimizer hands out (value - 50, value], so the
+-- sequence must stay at least 50 above the highest id. No-op once it is.
+SELECT setval('sales_seq', (SELECT MAX(id) FROM sales) + 50)
+WHERE (SELECT MAX(id) FROM sales) + 50 > (SELECT last_value FROM sales_seq);
+SELECT setval('sale_details_seq', (SELECT MAX(id) FROM sale_details) + 50)
+WHERE (SELECT MAX(id) FROM sale_details) + 50 > (SELECT last_value FROM sale_details_seq);
+SELECT setval('payments_seq', (SELECT MAX(id) FROM payments) + 50)
+WHERE (SELECT MAX(id) FROM payments) + 50 > (SELECT last_value FROM payments_seq);
+SELECT setval('notifications_seq', (SELECT MAX(id) FROM notifications) + 50)
+WHERE (SELECT MAX(id) FROM notifications) + 50 > (SELECT last_value FROM notifications_seq);
+
+-- One-off data migrations already applied, so they do not run on every startup
+CREATE TABLE IF NOT EXISTS schema_migrations (
+    name VARCHAR(100) PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL DEFAULT LOCALTIMESTAMP
+);
+
+-- Paid amount of sales created before it was stored on the sale. Runs once,
+-- before the application serves requests, so payments never validate against
+-- a stale 0. Later drift is repaired by the nightly reconciliation.
+UPDATE sales s SET paid_amount = p.total_paid
+FROM (SELECT sale_id, SUM(amount) AS total_paid FROM payments GROUP BY sale_id) p
+WHERE p.sale_id = s.id AND s.paid_amount IS DISTINCT FROM p.total_paid
+  AND NOT EXISTS (SELECT 1 FROM schema_migrations WHERE name = 'backfill_sales_paid_amount');
+INSERT INTO schema_migrations (name) VALUES ('backfill_sales_paid_amount') ON CONFLICT DO NOTHING;
+
+-- Hi/lo source of TV sale order numbers, see TvOrderNumberGenerator
+CREATE SEQUENCE IF NOT EXISTS tv_order_number_seq;
+
+-- One pending-sale reminder per (user, sale, type); the reminder job upserts
+-- against this index. Older duplicates are dropped once, before it is built.
+DELETE FROM notifications a USING notifications b
+WHERE a.type IN ('SALE_PENDING_REMINDER', 'SALE_PENDING_ADMIN_ALERT')
+  AND a.type = b.type AND a.user_id = b.user_id AND a.reference_id = b.reference_id AND a.id < b.id
+  AND NOT EXISTS (SELECT 1 FROM pg_indexes WHERE indexname = 'uq_notifications_pending_reminder');
+CREATE UNIQUE INDEX IF NOT EXISTS uq_notifications_pending_reminder ON notifications (user_id, reference_id, type)
+WHERE type IN ('SALE_PENDING_REMINDER', 'SALE_PENDING_ADMIN_ALERT');
+
+-- Reminder due times for pending sales created before they were stored. The
+-- email ones continue from the last email already sent, if any.
+UPDATE sales s SET
+    reminder_due_at = s.order_date + INTERVAL '1 day',
+    seller_email_due_at = GREATEST(s.order_date + INTERVAL '10 days',
+        (SELECT MAX(n.last_email_sent_at) + INTERVAL '10 days' FROM notifications n
+         WHERE n.reference_id = s.id AND n.type = 'SALE_PENDING_REMINDER')),
+    admin_alert_due_at = GREATEST(s.order_date + INTERVAL '30 days',
+        (SELECT MAX(n.last_email_sent_at) + INTERVAL '10 days' FROM notifications n
+         WHERE n.reference_id = s.id AND n.type = 'SALE_PENDING_ADMIN_ALERT'))
+WHERE s.status = 'PENDING' AND s.reminder_due_at IS NULL;
+
+-- Cycles created before SETTLING existed carry a check constraint on the old
+-- status values, which Hibernate does not update.
+ALTER TABLE cycles DROP CONSTRAINT IF EXISTS cycles_status_check;
@@ -0,0 +1,96 @@
+package com.elmayorista.notification;
+
+import com.elmayorista.sale.Sale;
+import com.elmayorista.sale.SaleRepository;
+import com.elmayorista.sale.SaleStatus;
+import com.elmayorista.service.EmailService;
+import com.elmayorista.user.Role;
+import com.elmayorista.user.User;
+import com.elmayorista.user.UserRepository;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private NotificationUpsertRepository notificationUpsertRepository;
+    @Mock
+    private SaleRepository saleRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private JavaMailSender mailSender;
+
+    private NotificationService notificationService;
+
+    @BeforeEach
+    void setUp() {
+        EmailService emailService = new EmailService(mailSender);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "no-reply@elmayorista.com");
+        ReflectionTestUtils.setField(emailService, "frontendUrl", "http://localhost:5173");
+        notificationService = new NotificationService(notificationRepository, notificationUpsertRepository,
+                saleRepository, emailService, userRepository);
+    }
+
+    @Test
+    void testFailedEmailsAreRetriedTomorrow() {
+        when(mailSender.createMimeMessage()).thenReturn(new MimeMessage((Session) null));
+        doThrow(new MailSendException("SMTP no disponible")).when(mailSender).send(any(MimeMessage.class));
+
+        User seller = User.builder().id(UUID.randomUUID()).email("vendedor@test.com").fullName("Vendedor").build();
+        User admin = User.builder().id(UUID.randomUUID()).email("admin@test.com").fullName("Admin").build();
+        LocalDateTime overdue = LocalDateTime.now().minusHours(1);
+        Sale sale = Sale.builder()
+                .id(1L)
+                .seller(seller)
+                .orderNumber("A-1")
+                .customerName("Cliente")
+                .total(new BigDecimal("100.00"))
+                .status(SaleStatus.PENDING)
+                .orderDate(LocalDateTime.now().minusDays(40))
+                .reminderDueAt(overdue)
+                .sellerEmailDueAt(overdue)
+                .adminAlertDueAt(overdue)
+                .build();
+        when(saleRepository.findDueForReminders(eq(SaleStatus.PENDING), any())).thenReturn(List.of(sale));
+        when(userRepository.findByRole(Role.ADMIN)).thenReturn(List.of(admin));
+
+        notificationService.generatePendingSaleReminders();
+
+        LocalDateTime tomorrow = LocalDate.now().plusDays(1).atStartOfDay();
+        verify(saleRepository).rescheduleSellerEmail(List.of(1L), tomorrow);
+        verify(saleRepository).rescheduleAdminAlert(List.of(1L), tomorrow);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Notification>> written = ArgumentCaptor.forClass(List.class);
+        verify(notificationUpsertRepository).upsertReminders(written.capture());
+        assertEquals(2, written.getValue().size());
+        written.getValue().forEach(notification -> assertNull(notification.getLastEmailSentAt(),
+                "Email recorded as sent for " + notification.getType()));
+    }
+}
@@ -0,0 +1,140 @@
+package com.elmayorista.report;
+
+import com.elmayorista.sale.SaleReportRow;
+import com.elmayorista.sale.SaleStatus;
+import com.elmayorista.sale.SaleType;
+import com.elmayorista.sale.SellerSaleTotals;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class CycleReportWriterTest {
+
+    private final CycleReportWriter writer = new CycleReportWriter();
+
+    @Test
+    void testStyleCountDoesNotGrowWithSellers() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        List<SaleReportRow> rows = rows(60, 3);
+        writer.writeSalesReport(totals(rows), rows::forEach, Map.of(), out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(61, workbook.getNumberOfSheets());
+            assertTrue(workbook.getNumCellStyles() < 12,
+                    "Styles created per seller: " + workbook.getNumCellStyles());
+            assertTrue(workbook.getSheetAt(1).getColumnWidth(1) > 256 * 10);
+        }
+    }
+
+    /**
+     * Compares computed column widths with autoSizeColumn on the same sheet.
+     * Opt-in, as it takes several seconds: run with {@code -Dreport.benchmark=true}.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "report.benchmark", matches = "true")
+    void benchmarkColumnSizing() throws IOException {
+        int rows = 20_000;
+        // Warm-up
+        renderSheet(2_000, true);
+        renderSheet(2_000, false);
+
+        long autoSize = renderSheet(rows, true);
+        long computed = renderSheet(rows, false);
+        log.info("Column sizing, {} rows: autoSizeColumn {} ms, computed widths {} ms", rows, autoSize, computed);
+
+        long start = System.nanoTime();
+        List<SaleReportRow> rows = rows(200, 100);
+        writer.writeSalesReport(totals(rows), rows::forEach, Map.of(), OutputStream.nullOutputStream());
+        log.info("Sales report, 200 sellers x 100 sales: {} ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+
+        assertTrue(computed < autoSize);
+    }
+
+    private long renderSheet(int rows, boolean autoSize) throws IOException {
+        long start = System.nanoTime();
+        SXSSFWorkbook workbook = new SXSSFWorkbook(CycleReportWriter.ROW_WINDOW);
+        try {
+            SXSSFSheet sheet = workbook.createSheet("bench");
+            ColumnWidths widths = new ColumnWidths();
+            if (autoSize) {
+                sheet.trackAllColumnsForAutoSizing();
+            }
+            for (int i = 0; i < rows; i++) {
+                Row row = sheet.createRow(i);
+                row.createCell(0).setCellValue("Cliente " + i);
+                row.createCell(1).setCellValue(i * 12.5);
+                row.createCell(2).setCellValue("PED-" + (100_000 + i));
+                if (!autoSize) {
+                    widths.track(row);
+                }
+            }
+            if (autoSize) {
+                for (int i = 0; i < 3; i++) {
+                    sheet.autoSizeColumn(i);
+                }
+            } else {
+                widths.apply(sheet);
+            }
+            workbook.write(OutputStream.nullOutputStream());
+        } finally {
+            workbook.dispose();
+            workbook.close();
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private List<SaleReportRow> rows(int sellers, int salesPerSeller) {
+        List<SaleReportRow> rows = new ArrayList<>();
+        long id = 1;
+        for (int s = 0; s < sellers; s++) {
+            UUID sellerId = UUID.randomUUID();
+            for (int i = 0; i < salesPerSeller; i++) {
+                rows.add(new SaleReportRow(id++, sellerId, "Vendedor " + s, "PED-" + s + "-" + i,
+                        "Cliente con nombre largo " + i, null, null, new BigDecimal("100.00"),
+                        new BigDecimal("5.00"), new BigDecimal("105.00"), new BigDecimal("5.00"),
+                        new BigDecimal("5.25"), SaleStatus.APPROVED, SaleType.STANDARD, null, null,
+                        LocalDateTime.now(), null, null));
+            }
+        }
+        return rows;
+    }
+
+    private List<SellerSaleTotals> totals(List<SaleReportRow> rows) {
+        Map<UUID, List<SaleReportRow>> bySeller = rows.stream()
+                .collect(Collectors.groupingBy(SaleReportRow::sellerId, LinkedHashMap::new, Collectors.toList()));
+        return bySeller.values().stream()
+                .map(sellerRows -> new SellerSaleTotals(sellerRows.get(0).sellerId(), sellerRows.get(0).sellerName(),
+                        new BigDecimal("5.00"),
+                        sum(sellerRows, SaleReportRow::subtotal), sum(sellerRows, SaleReportRow::shipping),
+                        sum(sellerRows, SaleReportRow::total), sum(sellerRows, SaleReportRow::commissionAmount),
+                        sellerRows.size()))
+                .toList();
+    }
+
+    private BigDecimal sum(List<SaleReportRow> rows, Function<SaleReportRow, BigDecimal> field) {
+        return rows.stream().map(field).reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+}
@@ -0,0 +1,166 @@
+package com.elmayorista.sale;
+
+import com.elmayorista.payment.PaymentStatus;
+import com.elmayorista.user.User;
+import com.elmayorista.user.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+
+@ExtendWith(MockitoExtension.class)
+class SaleImportServiceTest {
+
+    private static final String HEADER = "orderNumber,sellerEmail,customerName,total,orderDate,paidAmount,status\n";
+
+    @Mock
+    private SaleRepository saleRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private SaleService saleService;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private EntityManager entityManager;
+
+    private final List<Sale> saved = new ArrayList<>();
+    private final User importer = User.builder().email("admin@test.com").build();
+    private SaleImportService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new SaleImportService(saleRepository, userRepository, saleService, transactionTemplate,
+                new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+
+        User seller = User.builder().email("vendedor@test.com").commissionPercentage(new BigDecimal("10.00")).build();
+        lenient().when(userRepository.findByEmail("vendedor@test.com")).thenReturn(Optional.of(seller));
+        lenient().when(saleService.calculateCommission(any(), any())).thenAnswer(invocation -> invocation
+                .<BigDecimal>getArgument(0).multiply(invocation.<BigDecimal>getArgument(1))
+                .movePointLeft(2).setScale(2, RoundingMode.HALF_UP));
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().doAnswer(invocation -> {
+            List<Sale> sales = invocation.getArgument(0);
+            saved.addAll(sales);
+            return sales;
+        }).when(saleRepository).saveAll(any());
+    }
+
+    @Test
+    void testQuotedCsvFields() {
+        SaleImportResult result = importCsv(
+                "A-1,vendedor@test.com,\"Pérez, \"\"Juan\"\"\",100.00,2025-01-10T10:00:00,,\n");
+
+        assertEquals(1, result.imported());
+        assertEquals("Pérez, \"Juan\"", saved.get(0).getCustomerName());
+    }
+
+    @Test
+    void testUnclosedQuoteSkipsTheLine() {
+        SaleImportResult result = importCsv(
+                "A-1,vendedor@test.com,\"Pérez,100.00,2025-01-10T10:00:00,,\n" +
+                "A-2,vendedor@test.com,Gómez,100.00,2025-01-10T10:00:00,,\n");
+
+        assertEquals(1, result.imported());
+        assertEquals(1, result.skipped());
+        assertEquals(List.of("Línea 2: formato inválido: comillas sin cerrar"), result.errors());
+        assertEquals("A-2", saved.get(0).getOrderNumber());
+    }
+
+    @Test
+    void testStatusAndCommissionDefaults() {
+        SaleImportResult result = importCsv(
+                "A-1,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,,\n" +
+                "A-2,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,40.00,\n" +
+                "A-3,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,100.00,\n" +
+                "A-4,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,100.00,APPROVED\n" +
+                "A-5,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,100.00,REJECTED\n");
+
+        assertEquals(5, result.imported());
+        assertSale(saved.get(0), SaleStatus.PENDING, PaymentStatus.UNPAID, "0");
+        assertSale(saved.get(1), SaleStatus.PENDING, PaymentStatus.PARTIALLY_PAID, "0");
+        assertSale(saved.get(2), SaleStatus.UNDER_REVIEW, PaymentStatus.PAID, "10.00");
+        assertSale(saved.get(3), SaleStatus.APPROVED, PaymentStatus.PAID, "10.00");
+        assertSale(saved.get(4), SaleStatus.REJECTED, PaymentStatus.PAID, "0");
+        assertNull(saved.get(2).getReminderDueAt());
+    }
+
+    @Test
+    void testImportedApprovedSalesAreSettledByDefault() {
+        importCsv("A-1,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,100.00,APPROVED\n" +
+                "A-2,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,100.00,\n");
+
+        assertTrue(saved.get(0).isCommissionSettled());
+        assertFalse(saved.get(1).isCommissionSettled());
+    }
+
+    @Test
+    void testImportedPendingRemindersStartFromTheImport() {
+        LocalDateTime before = LocalDateTime.now();
+        importCsv("A-1,vendedor@test.com,Cliente,100.00,2020-01-10T10:00:00,,\n");
+
+        Sale sale = saved.get(0);
+        assertTrue(sale.getReminderDueAt().isAfter(before));
+        assertTrue(sale.getSellerEmailDueAt().isAfter(before.plusDays(9)));
+        assertTrue(sale.getAdminAlertDueAt().isAfter(before.plusDays(29)));
+    }
+
+    @Test
+    void testFailedChunkIsRetriedRowByRow() {
+        doAnswer(invocation -> {
+            List<Sale> sales = invocation.getArgument(0);
+            if (sales.size() > 1 || "A-2".equals(sales.get(0).getOrderNumber())) {
+                throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+            }
+            saved.addAll(sales);
+            return sales;
+        }).when(saleRepository).saveAll(any());
+
+        SaleImportResult result = importCsv(
+                "A-1,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,,\n" +
+                "A-2,vendedor@test.com,Cliente,100.00,2025-01-10T10:00:00,,\n");
+
+        assertEquals(1, result.imported());
+        assertEquals(1, result.skipped());
+        assertEquals(List.of("Línea 3: no se pudo guardar la venta"), result.errors());
+        assertEquals("A-1", saved.get(0).getOrderNumber());
+    }
+
+    private SaleImportResult importCsv(String rows) {
+        return service.importSales(new MockMultipartFile("file", "ventas.csv", "text/csv",
+                (HEADER + rows).getBytes(StandardCharsets.UTF_8)), importer);
+    }
+
+    private void assertSale(Sale sale, SaleStatus status, PaymentStatus paymentStatus, String commission) {
+        assertEquals(status, sale.getStatus());
+        assertEquals(paymentStatus, sale.getPaymentStatus());
+        assertEquals(0, new BigDecimal(commission).compareTo(sale.getCommissionAmount()),
+                "Commission of " + sale.getOrderNumber() + ": " + sale.getCommissionAmount());
+    }
+}